@@ -32,6 +32,35 @@ public interface TeleportImpl {
                 1L);
     }
 
+    /**
+     * Starts the teleport without going through the scheduler of the entity,
+     * must be called on the thread owning the entity.
+     */
+    default void teleportAsyncNow(Entity entity,
+                                  ServerLevel destination,
+                                  @NotNull Vec3 pos,
+                                  Float yaw,
+                                  Float pitch,
+                                  Vec3 velocity,
+                                  @Nullable PlayerTeleportEvent.TeleportCause cause,
+                                  long teleportFlags,
+                                  Consumer<Entity> teleportComplete) {
+        entity.teleportAsync(destination, pos, yaw, pitch, velocity, cause, teleportFlags, teleportComplete);
+    }
+
+    default void teleportAsyncNow(Entity entity,
+                                  ServerLevel destination,
+                                  @NotNull Vec3 pos,
+                                  Float yaw,
+                                  Float pitch,
+                                  Vec3 velocity,
+                                  @Nullable PlayerTeleportEvent.TeleportCause cause,
+                                  long teleportFlags,
+                                  boolean resetCamara,
+                                  Consumer<Entity> teleportComplete) {
+        teleportAsyncNow(entity, destination, pos, yaw, pitch, velocity, cause, teleportFlags, teleportComplete);
+    }
+
     default void teleportAsync(Entity entity,
                                ServerLevel destination,
                                @NotNull Vec3 pos,
@@ -51,6 +80,12 @@ public interface TeleportImpl {
 
     void teleportTo(Entity entity, ServerLevel destination, double x, double y, double z, float yaw, float pitch, boolean resetCamara);
 
+    /**
+     * Moves the entity by the given offsets in its level, players are sent a relative move instead of an absolute one.
+     * Must be called on the thread owning the entity and its destination.
+     */
+    void teleportRelative(Entity entity, double dx, double dy, double dz, float dYaw, float dPitch);
+
     default Location getLocation(Entity entity) {
         return entity.getBukkitEntity().getLocation();
     }
@@ -3,13 +3,18 @@ package one.tranic.irs.nms.v1201;
 import io.papermc.paper.threadedregions.EntityScheduler;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.RelativeMovement;
 import one.tranic.irs.nms.impl.TeleportImpl;
 import org.bukkit.craftbukkit.v1_20_R1.CraftWorld;
 import org.bukkit.craftbukkit.v1_20_R1.entity.CraftEntity;
 
+import java.util.EnumSet;
 import java.util.Set;
 
 public class NMSTeleport implements TeleportImpl {
+    private static final Set<RelativeMovement> RELATIVE = EnumSet.of(
+            RelativeMovement.X, RelativeMovement.Y, RelativeMovement.Z, RelativeMovement.Y_ROT, RelativeMovement.X_ROT);
+
     @Override
     public ServerLevel getServerLevel(Entity entity) {
         return ((CraftWorld) getLocation(entity).getWorld()).getHandle();
@@ -20,6 +25,13 @@ public class NMSTeleport implements TeleportImpl {
         entity.teleportTo(destination, x, y, z, Set.of(), yaw, pitch);
     }
 
+    @Override
+    public void teleportRelative(Entity entity, double dx, double dy, double dz, float dYaw, float dPitch) {
+        // The position stays absolute, the flags only make the packet sent to players relative.
+        entity.teleportTo(getServerLevel(entity), entity.getX() + dx, entity.getY() + dy, entity.getZ() + dz,
+                RELATIVE, entity.getYRot() + dYaw, entity.getXRot() + dPitch);
+    }
+
     @Override
     public Entity getNMSEntity(org.bukkit.entity.Entity entity) {
         return ((CraftEntity) entity).getHandle();
@@ -3,15 +3,21 @@ package one.tranic.irs.nms.v1214;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Relative;
 import net.minecraft.world.phys.Vec3;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.function.Consumer;
 
 public class NMSTeleport extends one.tranic.irs.nms.v1206.NMSTeleport {
+    private static final Set<Relative> RELATIVE = EnumSet.of(
+            Relative.X, Relative.Y, Relative.Z, Relative.Y_ROT, Relative.X_ROT,
+            Relative.DELTA_X, Relative.DELTA_Y, Relative.DELTA_Z);
+
     @Override
     public void teleportAsync(Entity entity,
                               ServerLevel destination,
@@ -26,6 +32,20 @@ public class NMSTeleport extends one.tranic.irs.nms.v1206.NMSTeleport {
         super.teleportAsync(entity, destination, pos, yaw, pitch, velocity, cause, teleportFlags, teleportComplete(resetCamara, teleportComplete));
     }
 
+    @Override
+    public void teleportAsyncNow(Entity entity,
+                                 ServerLevel destination,
+                                 @NotNull Vec3 pos,
+                                 Float yaw,
+                                 Float pitch,
+                                 Vec3 velocity,
+                                 @Nullable PlayerTeleportEvent.TeleportCause cause,
+                                 long teleportFlags,
+                                 boolean resetCamara,
+                                 Consumer<Entity> teleportComplete) {
+        super.teleportAsyncNow(entity, destination, pos, yaw, pitch, velocity, cause, teleportFlags, teleportComplete(resetCamara, teleportComplete));
+    }
+
     private Consumer<Entity> teleportComplete(boolean resetCamara, Consumer<Entity> teleportComplete) {
         return entity -> {
             if (resetCamara && entity instanceof ServerPlayer player) player.setCamera(player);
@@ -33,6 +53,12 @@ public class NMSTeleport extends one.tranic.irs.nms.v1206.NMSTeleport {
         };
     }
 
+    @Override
+    public void teleportRelative(Entity entity, double dx, double dy, double dz, float dYaw, float dPitch) {
+        // Since 1.21.2 the coordinates of relative teleports are offsets, the velocity is kept as well.
+        entity.teleportTo(getServerLevel(entity), dx, dy, dz, RELATIVE, dYaw, dPitch, false);
+    }
+
     @Override
     public void teleportTo(Entity entity, ServerLevel destination, double x, double y, double z, float yaw, float pitch, boolean resetCamara) {
         entity.teleportTo(destination, x, y, z, Set.of(), yaw, pitch, resetCamara);
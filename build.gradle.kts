@@ -39,7 +39,17 @@ dependencies {
     shadow(project(":NMS_1206", configuration = "shadow"))
     shadow(project(":NMS_1214", configuration = "shadow"))
 
+    compileOnly("net.md-5:bungeecord-api:1.20-R0.2")
+
     paperweight.foliaDevBundle("1.20.1-R0.1-SNAPSHOT")
+
+    testImplementation(platform("org.junit:junit-bom:5.11.3"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 val targetJavaVersion = 17
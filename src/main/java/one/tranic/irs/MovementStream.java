@@ -0,0 +1,296 @@
+package one.tranic.irs;
+
+import one.tranic.irs.platform.Dispatcher;
+import one.tranic.irs.platform.ShreddedPaperHook;
+import one.tranic.irs.task.TaskImpl;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Coalesces the moves of entities submitted during a tick into a single relative teleport per entity.
+ * <p>
+ * Moves can be submitted from any thread. Once per tick, the pending moves are applied in batches on the threads
+ * owning the entities: in a single pass on the main thread on Spigot/Paper, and with one task per group of chunks
+ * on Folia and ShreddedPaper. The group of an entity is the one it was last seen in by its owning thread, when a move
+ * was submitted from that thread or applied. Entities without a known group, or no longer owned by the thread of
+ * their batch, are moved by a task of their own, and moves whose destination is in another region or world fall
+ * back to {@link NMSTeleport#teleportAsync}.
+ * <p>
+ * The stream is closed when its plugin is disabled.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * MovementStream stream = MovementStream.of(plugin);
+ *
+ * // From any thread, several times per tick if needed
+ * stream.move(npc, 0.1, 0, 0);
+ * stream.move(npc, 0, 0.05, 0, 5f, 0f);
+ * }
+ * </pre>
+ */
+public final class MovementStream implements Listener {
+    private static final Map<Plugin, MovementStream> streams = new ConcurrentHashMap<>();
+
+    private final Plugin plugin;
+    private final Dispatcher dispatcher = Dispatcher.get();
+    private final Map<Entity, Move> pending = new ConcurrentHashMap<>();
+    private final Map<Entity, Section> sections = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile TaskImpl<Plugin> drainTask;
+
+    private MovementStream(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Returns the movement stream of the plugin.
+     *
+     * @param plugin the plugin moving the entities
+     * @return the movement stream of the plugin
+     */
+    public static @NotNull MovementStream of(@NotNull Plugin plugin) {
+        return streams.computeIfAbsent(plugin, p -> {
+            MovementStream stream = new MovementStream(p);
+            Bukkit.getPluginManager().registerEvents(stream, p);
+            return stream;
+        });
+    }
+
+    /**
+     * Moves the entity by the given offsets on the next tick, in addition to the moves already pending.
+     *
+     * @param entity the entity
+     * @param dx     the offset on the x axis
+     * @param dy     the offset on the y axis
+     * @param dz     the offset on the z axis
+     */
+    public void move(@NotNull Entity entity, double dx, double dy, double dz) {
+        move(entity, dx, dy, dz, 0f, 0f);
+    }
+
+    /**
+     * Moves and rotates the entity by the given offsets on the next tick, in addition to the moves already pending.
+     *
+     * @param entity the entity
+     * @param dx     the offset on the x axis
+     * @param dy     the offset on the y axis
+     * @param dz     the offset on the z axis
+     * @param dYaw   the offset of the yaw
+     * @param dPitch the offset of the pitch
+     */
+    public void move(@NotNull Entity entity, double dx, double dy, double dz, float dYaw, float dPitch) {
+        Section section = ownedSection(entity);
+        pending.compute(entity, (e, move) -> {
+            if (move == null) move = new Move();
+            if (section != null) move.section = section;
+            move.x += dx;
+            move.y += dy;
+            move.z += dz;
+            move.yaw += dYaw;
+            move.pitch += dPitch;
+            return move;
+        });
+        start();
+    }
+
+    /**
+     * Moves the entity to the location on the next tick, replacing the moves already pending.
+     * Moves submitted afterwards during the same tick are added to the location.
+     *
+     * @param entity the entity
+     * @param target the destination, including the yaw and pitch
+     */
+    public void moveTo(@NotNull Entity entity, @NotNull Location target) {
+        Section section = ownedSection(entity);
+        pending.compute(entity, (e, move) -> {
+            if (move == null) move = new Move();
+            if (section != null) move.section = section;
+            move.target = target.getWorld();
+            move.x = target.getX();
+            move.y = target.getY();
+            move.z = target.getZ();
+            move.yaw = target.getYaw();
+            move.pitch = target.getPitch();
+            return move;
+        });
+        start();
+    }
+
+    /**
+     * Returns the number of entities with a pending move.
+     *
+     * @return the number of entities to move on the next tick
+     */
+    public int pending() {
+        return pending.size();
+    }
+
+    /**
+     * Stops the stream, pending moves are discarded.
+     */
+    public void close() {
+        streams.remove(plugin, this);
+        synchronized (this) {
+            TaskImpl<Plugin> task = drainTask;
+            if (task != null) task.cancel();
+            drainTask = null;
+        }
+        pending.clear();
+        sections.clear();
+    }
+
+    @EventHandler
+    public void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() == plugin) close();
+    }
+
+    private void start() {
+        if (isDraining()) return;
+        synchronized (this) {
+            if (isDraining()) return;
+            drainTask = PluginSchedulerBuilder.builder(plugin)
+                    .sync()
+                    .task(this::drain)
+                    .delayTicks(1L)
+                    .period(1L)
+                    .run();
+        }
+    }
+
+    private boolean isDraining() {
+        TaskImpl<Plugin> task = drainTask;
+        return task != null && !task.isCancelled();
+    }
+
+    private void drain() {
+        if (pending.isEmpty()) return;
+
+        if (dispatcher == Dispatcher.Bukkit) {
+            for (Entity entity : pending.keySet()) {
+                Move move = pending.remove(entity);
+                if (move != null) apply(entity, move);
+            }
+            return;
+        }
+
+        // Entities close to each other are most likely owned by the same region, so they are moved by the same task.
+        // Their state cannot be read from this thread, they are grouped by the section their owner last saw them in.
+        Map<Section, List<Batch>> batches = new HashMap<>();
+        for (Entity entity : pending.keySet()) {
+            Move move = pending.remove(entity);
+            if (move == null) continue;
+            Section section = move.section != null ? move.section : sections.get(entity);
+            if (section == null) applyOnOwner(entity, move);
+            else batches.computeIfAbsent(section, s -> new ArrayList<>()).add(new Batch(entity, move));
+        }
+
+        for (Map.Entry<Section, List<Batch>> entry : batches.entrySet()) {
+            Section section = entry.getKey();
+            List<Batch> batch = entry.getValue();
+            World world = Bukkit.getWorld(section.world());
+            if (world == null) {
+                for (Batch b : batch) applyOnOwner(b.entity(), b.move());
+                continue;
+            }
+            PluginSchedulerBuilder.builder(plugin)
+                    .sync(new Location(world, (section.x() << 8) + 128, 0, (section.z() << 8) + 128))
+                    .inlineIfOwned()
+                    .task(() -> {
+                        for (Batch b : batch) {
+                            if (owns(b.entity())) apply(b.entity(), b.move());
+                            else applyOnOwner(b.entity(), b.move());
+                        }
+                    })
+                    .run();
+        }
+    }
+
+    private void applyOnOwner(Entity entity, Move move) {
+        PluginSchedulerBuilder.builder(plugin)
+                .sync(entity)
+                .retired(() -> sections.remove(entity))
+                .task(() -> apply(entity, move))
+                .run();
+    }
+
+    private void apply(Entity entity, Move move) {
+        try {
+            if (!entity.isValid()) {
+                sections.remove(entity);
+                return;
+            }
+            Location from = entity.getLocation();
+            Location to = move.target != null
+                    ? new Location(move.target, move.x, move.y, move.z, move.yaw, move.pitch)
+                    : new Location(from.getWorld(), from.getX() + move.x, from.getY() + move.y, from.getZ() + move.z,
+                    from.getYaw() + move.yaw, from.getPitch() + move.pitch);
+
+            if (to.getWorld() != from.getWorld() || !owns(to)) {
+                // The entity changes owner, its next moves are grouped again once its new owner has seen it.
+                sections.remove(entity);
+                NMSTeleport.teleportAsync(entity, to, false, true);
+                return;
+            }
+            NMSTeleport.teleportRelative(entity, to.getX() - from.getX(), to.getY() - from.getY(), to.getZ() - from.getZ(),
+                    to.getYaw() - from.getYaw(), to.getPitch() - from.getPitch());
+            if (dispatcher != Dispatcher.Bukkit) sections.put(entity, Section.of(to));
+        } catch (Throwable e) {
+            plugin.getLogger().log(Level.WARNING, "Exception while moving entity " + entity.getUniqueId(), e);
+        }
+    }
+
+    private @Nullable Section ownedSection(Entity entity) {
+        if (dispatcher == Dispatcher.Bukkit || !owns(entity) || !entity.isValid()) return null;
+        return Section.of(entity.getLocation());
+    }
+
+    private boolean owns(Entity entity) {
+        return switch (dispatcher) {
+            case Folia -> Bukkit.isOwnedByCurrentRegion(entity);
+            case ShreddedPaper -> ShreddedPaperHook.isSync(entity);
+            case Bukkit -> true;
+        };
+    }
+
+    private boolean owns(Location location) {
+        return switch (dispatcher) {
+            case Folia -> Bukkit.isOwnedByCurrentRegion(location);
+            case ShreddedPaper -> ShreddedPaperHook.isSync(location);
+            case Bukkit -> true;
+        };
+    }
+
+    private static final class Move {
+        private Section section;
+        private World target;
+        private double x, y, z;
+        private float yaw, pitch;
+    }
+
+    private record Batch(Entity entity, Move move) {
+    }
+
+    private record Section(UUID world, int x, int z) {
+        private static Section of(Location location) {
+            return new Section(location.getWorld().getUID(), location.getBlockX() >> 8, location.getBlockZ() >> 8);
+        }
+    }
+}
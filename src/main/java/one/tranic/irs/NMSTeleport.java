@@ -1,18 +1,26 @@
 package one.tranic.irs;
 
+import io.papermc.paper.entity.TeleportFlag;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.phys.Vec3;
 import one.tranic.irs.nms.impl.TeleportImpl;
-import one.tranic.irs.platform.Platform;
+import one.tranic.irs.platform.Dispatcher;
+import one.tranic.irs.platform.ShreddedPaperHook;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
 import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 public class NMSTeleport {
-    private final static boolean folia = Platform.isMultithreading();
+    private final static Dispatcher dispatcher = Dispatcher.get();
 
     private static TeleportImpl impl;
 
@@ -62,6 +70,25 @@ public class NMSTeleport {
         teleportAsync(impl.getNMSEntity(entity), pos, location.getYaw(), location.getPitch(), resetCamara, null);
     }
 
+    public static void teleportAsync(org.bukkit.entity.Entity entity,
+                                     Location location, boolean resetCamara, boolean inlineIfOwned) {
+        IMPL();
+
+        Entity handle = impl.getNMSEntity(entity);
+        Vec3 pos = new Vec3(location.getX(), location.getY(), location.getZ());
+        teleportAsync(handle, impl.getServerLevel(handle), pos, null, location.getYaw(), location.getPitch(), 0, resetCamara, inlineIfOwned, null);
+    }
+
+    /**
+     * Moves the entity by the given offsets without a scheduler hand-off, players are sent a relative move.
+     * Must be called on the thread owning the entity and its destination, see {@link MovementStream}.
+     */
+    public static void teleportRelative(org.bukkit.entity.Entity entity,
+                                        double dx, double dy, double dz, float dYaw, float dPitch) {
+        IMPL();
+        impl.teleportRelative(impl.getNMSEntity(entity), dx, dy, dz, dYaw, dPitch);
+    }
+
     public static void teleportAsync(org.bukkit.entity.Entity entity,
                                      double x, double y, double z, boolean resetCamara) {
         IMPL();
@@ -78,16 +105,79 @@ public class NMSTeleport {
                                      long teleportFlags,
                                      boolean resetCamara,
                                      final Consumer<Entity> onComplete) {
+        teleportAsync(entity, destination, pos, cause, yaw, pitch, teleportFlags, resetCamara, false, onComplete);
+    }
+
+    /**
+     * Teleports the entity, starting the teleport right away instead of on the next tick when
+     * {@code inlineIfOwned} is set and the calling thread already owns the entity.
+     */
+    public static void teleportAsync(Entity entity, ServerLevel destination,
+                                     @NotNull Vec3 pos,
+                                     @Nullable org.bukkit.event.player.PlayerTeleportEvent.TeleportCause cause,
+                                     float yaw,
+                                     float pitch,
+                                     long teleportFlags,
+                                     boolean resetCamara,
+                                     boolean inlineIfOwned,
+                                     final Consumer<Entity> onComplete) {
         IMPL();
 
-        if (folia) {
-            impl.teleportAsync(entity, destination, pos, yaw, pitch, null, cause, teleportFlags, resetCamara, onComplete);
+        if (dispatcher.handsOffToChunkOwner()) {
+            Runnable teleport = () -> teleportShreddedPaper(entity, destination, pos, cause, yaw, pitch, teleportFlags, resetCamara, onComplete);
+            if (inlineIfOwned && ShreddedPaperHook.isSync(entity.getBukkitEntity())) teleport.run();
+            else ShreddedPaperHook.runSync(entity.getBukkitEntity(), teleport);
+        } else if (dispatcher == Dispatcher.Folia) {
+            if (inlineIfOwned && Bukkit.isOwnedByCurrentRegion(entity.getBukkitEntity()))
+                impl.teleportAsyncNow(entity, destination, pos, yaw, pitch, null, cause, teleportFlags, resetCamara, onComplete);
+            else impl.teleportAsync(entity, destination, pos, yaw, pitch, null, cause, teleportFlags, resetCamara, onComplete);
         } else {
             impl.teleportTo(entity, destination, pos.x, pos.y, pos.z, yaw, pitch, resetCamara);
             if (onComplete != null) onComplete.accept(entity);
         }
     }
 
+    /**
+     * Teleports the entity on the thread owning it on ShreddedPaper. The teleport only happens right away if that
+     * thread also owns the destination, otherwise it is left to the async teleport of the server.
+     */
+    private static void teleportShreddedPaper(Entity entity, ServerLevel destination, Vec3 pos,
+                                              @Nullable PlayerTeleportEvent.TeleportCause cause,
+                                              float yaw, float pitch, long teleportFlags, boolean resetCamara,
+                                              @Nullable Consumer<Entity> onComplete) {
+        org.bukkit.entity.Entity bukkitEntity = entity.getBukkitEntity();
+        Location to = new Location(destination.getWorld(), pos.x, pos.y, pos.z, yaw, pitch);
+        PlayerTeleportEvent.TeleportCause teleportCause = cause != null ? cause : PlayerTeleportEvent.TeleportCause.PLUGIN;
+        TeleportFlag[] flags = teleportFlags(teleportFlags);
+
+        if (ShreddedPaperHook.isSync(to)) {
+            boolean teleported = bukkitEntity.teleport(to, teleportCause, flags);
+            completeShreddedPaper(entity, teleported, resetCamara, onComplete);
+            return;
+        }
+        bukkitEntity.teleportAsync(to, teleportCause, flags)
+                .thenAccept(teleported -> completeShreddedPaper(entity, teleported, resetCamara, onComplete));
+    }
+
+    private static void completeShreddedPaper(Entity entity, boolean teleported, boolean resetCamara,
+                                              @Nullable Consumer<Entity> onComplete) {
+        if (teleported && resetCamara && entity.getBukkitEntity() instanceof Player player
+                && player.getGameMode() == GameMode.SPECTATOR) player.setSpectatorTarget(null);
+        if (onComplete != null) onComplete.accept(teleported ? entity : null);
+    }
+
+    /**
+     * Converts the teleport flags of Folia's {@code Entity#teleportAsync} to the flags of the Paper API.
+     */
+    private static TeleportFlag[] teleportFlags(long teleportFlags) {
+        List<TeleportFlag> flags = new ArrayList<>(2);
+        if ((teleportFlags & Entity.TELEPORT_FLAG_TELEPORT_PASSENGERS) != 0)
+            flags.add(TeleportFlag.EntityState.RETAIN_PASSENGERS);
+        if ((teleportFlags & Entity.TELEPORT_FLAG_UNMOUNT) == 0)
+            flags.add(TeleportFlag.EntityState.RETAIN_VEHICLE);
+        return flags.toArray(new TeleportFlag[0]);
+    }
+
     public static void teleportAsync(Entity entity, @NotNull net.minecraft.world.phys.Vec3 pos,
                                      float yaw,
                                      float pitch,
@@ -1,21 +1,45 @@
 package one.tranic.irs;
 
 import io.papermc.paper.threadedregions.scheduler.*;
-import one.tranic.irs.platform.Platform;
+import one.tranic.irs.chunk.ChunkLoadIndex;
+import one.tranic.irs.executor.Bulkhead;
+import one.tranic.irs.executor.Bulkheads;
+import one.tranic.irs.platform.Dispatcher;
+import one.tranic.irs.platform.FoliaHook;
+import one.tranic.irs.platform.ShreddedPaperHook;
+import one.tranic.irs.task.ExecutorScheduledTask;
 import one.tranic.irs.task.FoliaScheduledTask;
+import one.tranic.irs.task.InlineTask;
+import one.tranic.irs.task.PhaseSpreader;
+import one.tranic.irs.task.ShreddedPaperScheduledTask;
+import one.tranic.irs.task.SpigotBoundTask;
+import one.tranic.irs.task.SpigotConsumerTask;
 import one.tranic.irs.task.SpigotScheduledTask;
 import one.tranic.irs.task.TaskImpl;
+import one.tranic.irs.task.TaskLeakDetector;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitScheduler;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 /**
  * Builder class for scheduling tasks in a Bukkit or Folia environment.
@@ -33,29 +57,47 @@ import java.util.function.Consumer;
  *     .run();
  * }
  * </pre>
+ * <p>
+ * The builder only keeps weak references to the entity or the world it targets,
+ * so builders stored in fields do not keep removed entities or unloaded worlds in memory.
  */
 public class PluginSchedulerBuilder {
     private static final long MINIMUM_TICK = 1L;
-
+    private static final Map<Plugin, Set<ExecutorScheduledTask<?>>> bulkheadTasks = new ConcurrentHashMap<>();
+    private static final boolean HAS_CURRENT_TICK = hasCurrentTick();
 
     private final Plugin plugin;
+    private final Dispatcher dispatcher;
     private boolean isFoliaDispatcher;
     private boolean isSynchronous;
     private Long initialDelayTicks;
     private Long periodTicks;
     private Runnable task;
     private Consumer<? super TaskImpl<Plugin>> taskConsumer;
-    private Location location;
-    private Entity entity;
+    private WeakReference<Entity> entity;
+    private WeakReference<World> world;
+    private double x, y, z;
+    private Runnable retired;
+    private Bulkhead bulkhead;
+    private boolean awaitChunkLoad;
+    private long timeoutTicks;
+    private Runnable onTimeout;
+    private boolean inlineIfOwned;
+    private PhaseSpreader.Policy phasePolicy = PhaseSpreader.Policy.NONE;
 
     /**
      * Constructs a new {@code PluginSchedulerBuilder} for the given plugin.
-     * Automatically detects the platform to adjust behavior for Folia or Spigot.
+     * Automatically detects the platform to adjust behavior for Folia, ShreddedPaper or Spigot.
      *
      * @param plugin the plugin instance to associate with this scheduler builder
      */
     public PluginSchedulerBuilder(Plugin plugin) {
-        this.isFoliaDispatcher = Platform.isMultithreading();
+        this(plugin, Dispatcher.get());
+    }
+
+    PluginSchedulerBuilder(Plugin plugin, Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        this.isFoliaDispatcher = dispatcher.isMultithreading();
         this.plugin = plugin;
         this.isSynchronous = true;
     }
@@ -70,7 +112,14 @@ public class PluginSchedulerBuilder {
         return new PluginSchedulerBuilder(plugin);
     }
 
+    /**
+     * Cancels all tasks scheduled by the plugin of this builder.
+     * <p>
+     * Tasks running on a {@link Bulkhead} are not known to the server, they are cancelled here and when the plugin
+     * is disabled.
+     */
     public void cancelTasks() {
+        cancelBulkheadTasks(plugin);
         if (isFoliaDispatcher) {
             Bukkit.getGlobalRegionScheduler().cancelTasks(plugin);
             Bukkit.getAsyncScheduler().cancelTasks(plugin);
@@ -84,6 +133,8 @@ public class PluginSchedulerBuilder {
      */
     public PluginSchedulerBuilder sync() {
         this.isSynchronous = true;
+        this.bulkhead = null;
+        this.awaitChunkLoad = false;
         return this;
     }
 
@@ -95,8 +146,9 @@ public class PluginSchedulerBuilder {
      */
     public PluginSchedulerBuilder sync(@NotNull Location location) {
         this.isSynchronous = true;
-        this.location = location;
-        this.entity = null;
+        bindLocation(location);
+        this.bulkhead = null;
+        this.awaitChunkLoad = false;
         return this;
     }
 
@@ -108,22 +160,150 @@ public class PluginSchedulerBuilder {
      */
     public PluginSchedulerBuilder sync(@NotNull Entity entity) {
         this.isSynchronous = true;
-        this.entity = entity;
-        this.location = null;
+        this.entity = new WeakReference<>(entity);
+        this.world = null;
+        this.bulkhead = null;
+        this.awaitChunkLoad = false;
         return this;
     }
 
     /**
      * Configures the task to run asynchronously.
      * <p>
+     * If the plugin registered a bulkhead with the {@link Bulkheads#DEFAULT_LABEL}, the task runs on it,
+     * otherwise it runs on the async scheduler of the server.
+     * <p>
      * <strong>Processing entities and worlds in asynchronous tasks is not allowed.</strong>
      *
      * @return this builder instance for method chaining
      */
     public PluginSchedulerBuilder async() {
+        return async(Bulkheads.get(plugin.getName(), Bulkheads.DEFAULT_LABEL));
+    }
+
+    /**
+     * Configures the task to run asynchronously on the bulkhead registered by the plugin with the given label.
+     * <p>
+     * <strong>Processing entities and worlds in asynchronous tasks is not allowed.</strong>
+     *
+     * @param label the label the bulkhead was registered with in {@link Bulkheads}
+     * @return this builder instance for method chaining
+     * @throws IllegalArgumentException if the plugin has no bulkhead with this label
+     */
+    public PluginSchedulerBuilder async(@NotNull String label) {
+        Bulkhead bulkhead = Bulkheads.get(plugin.getName(), label);
+        if (bulkhead == null)
+            throw new IllegalArgumentException("No bulkhead registered for " + plugin.getName() + " with label " + label);
+        return async(bulkhead);
+    }
+
+    /**
+     * Configures the task to run asynchronously on the given bulkhead.
+     * <p>
+     * The returned {@code TaskImpl} is an {@link ExecutorScheduledTask}, and for tasks without delay its
+     * {@link ExecutorScheduledTask#getFuture() future} tells whether the bulkhead rejected the task.
+     * <p>
+     * <strong>Processing entities and worlds in asynchronous tasks is not allowed.</strong>
+     *
+     * @param bulkhead the bulkhead running the task, or null to use the async scheduler of the server
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder async(@Nullable Bulkhead bulkhead) {
         this.isSynchronous = false;
-        this.location = null;
+        this.world = null;
         this.entity = null;
+        this.bulkhead = bulkhead;
+        this.awaitChunkLoad = false;
+        return this;
+    }
+
+    /**
+     * Configures the task to run once, on the region owning the location, as soon as its chunk is loaded.
+     * <p>
+     * The task does not load the chunk and costs nothing while it waits: it is parked in the
+     * {@link ChunkLoadIndex} and only scheduled when the chunk loads, or right away if it is already loaded.
+     * {@link #delayTicks(long)} and {@link #period(long)} are ignored, use {@link #timeoutTicks(long)} to stop waiting.
+     * If the world is unloaded first, the task is cancelled and the {@link #retired(Runnable) retired} callback runs.
+     *
+     * @param location the location whose chunk has to be loaded
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder whenChunkLoaded(@NotNull Location location) {
+        this.isSynchronous = true;
+        bindLocation(location);
+        this.bulkhead = null;
+        this.awaitChunkLoad = true;
+        return this;
+    }
+
+    /**
+     * Sets how long a {@link #whenChunkLoaded(Location)} task waits for its chunk before it is cancelled.
+     *
+     * @param timeoutTicks the number of ticks to wait, or 0 to wait forever
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder timeoutTicks(long timeoutTicks) {
+        return timeoutTicks(timeoutTicks, null);
+    }
+
+    /**
+     * Sets how long a {@link #whenChunkLoaded(Location)} task waits for its chunk before it is cancelled.
+     *
+     * @param timeoutTicks the number of ticks to wait, or 0 to wait forever
+     * @param onTimeout    called on the global region (the main thread on Spigot/Paper) when the task times out
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder timeoutTicks(long timeoutTicks, @Nullable Runnable onTimeout) {
+        this.timeoutTicks = Math.max(0L, timeoutTicks);
+        this.onTimeout = onTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the callback to run instead of the task once its target is gone.
+     * <p>
+     * For {@link #sync(Entity)} tasks, the target is gone when the entity is removed, on Folia this is the
+     * retired callback of the {@code EntityScheduler}. On Spigot/Paper, and for tasks without delay on ShreddedPaper,
+     * tasks bound with {@link #sync(Entity)} or {@link #sync(Location)} check their target before every execution and
+     * cancel themselves when the entity was removed or the world was unloaded. Players are only removed when they
+     * leave, so their tasks keep running while they are dead. Folia drops region tasks of unloaded worlds without
+     * calling it.
+     * <p>
+     * The callback runs at most once, on the thread that would have run the task. If the target is already gone
+     * when the task is scheduled, it runs on the thread calling {@link #run()} before it returns null.
+     *
+     * @param retired the callback
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder retired(@Nullable Runnable retired) {
+        this.retired = retired;
+        return this;
+    }
+
+    /**
+     * Runs the task right away, on the calling thread, when that thread already owns the target of the task.
+     * <p>
+     * Only tasks without {@link #delayTicks(long)} are run inline: on Folia when the caller owns the region of the
+     * location or entity (or is the global region thread for {@link #sync()}), on ShreddedPaper when it owns the chunk,
+     * and on Spigot/Paper when it is the main thread. Otherwise the task is scheduled as usual.
+     * <p>
+     * An inline task has completed when {@link #run()} returns an {@link InlineTask}, and its exceptions are thrown to
+     * the caller.
+     *
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder inlineIfOwned() {
+        return inlineIfOwned(true);
+    }
+
+    /**
+     * Sets whether the task runs inline when the calling thread already owns its target, see {@link #inlineIfOwned()}.
+     *
+     * @param inlineIfOwned true to run the task inline when possible
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder inlineIfOwned(boolean inlineIfOwned) {
+        this.inlineIfOwned = inlineIfOwned;
         return this;
     }
 
@@ -170,20 +350,201 @@ public class PluginSchedulerBuilder {
      * @return this builder instance for method chaining
      */
     public PluginSchedulerBuilder period(long period) {
-        this.periodTicks = normalizeTick(periodTicks);
+        return period(period, PhaseSpreader.Policy.NONE);
+    }
+
+    /**
+     * Sets the period in ticks between consecutive executions of the task, and how the task is spread
+     * among the other tasks with the same period.
+     * <p>
+     * With a policy other than {@link PhaseSpreader.Policy#NONE}, up to {@code period - 1} ticks are added to the
+     * initial delay so that tasks with the same period, in the same region, the global region or the same async
+     * executor, do not all run on the same tick. See {@link PhaseSpreader} for the resulting load per tick.
+     *
+     * @param period the number of ticks between executions
+     * @param policy how the first execution is offset
+     * @return this builder instance for method chaining
+     */
+    public PluginSchedulerBuilder period(long period, @NotNull PhaseSpreader.Policy policy) {
+        this.periodTicks = normalizeTick(period);
+        this.phasePolicy = policy;
         return this;
     }
 
+    /**
+     * Creates a {@link java.util.concurrent.Flow.Publisher} emitting the values of the supplier every period of this task.
+     * <p>
+     * The builder belongs to the publisher afterwards, each subscription schedules its own task with it.
+     * Without {@link #delayTicks(long)} and {@link #period(long)}, a value is produced every tick.
+     *
+     * @param supplier produces the values on the thread running the task
+     * @param <T>      the type of the values
+     * @return a new {@code TickPublisher}
+     * @throws UnsupportedOperationException if the task waits for a chunk
+     * @see TickPublisher
+     */
+    public @NotNull <T> TickPublisher<T> publish(@NotNull Supplier<? extends T> supplier) {
+        if (awaitChunkLoad) throw new UnsupportedOperationException("Tasks waiting for a chunk cannot be published.");
+        if (!hasInitialDelay()) delayTicks(MINIMUM_TICK);
+        if (!hasPeriod()) period(MINIMUM_TICK);
+        return new TickPublisher<>(this, supplier, this.retired);
+    }
+
     /**
      * Builds and schedules the task based on the configured parameters.
      *
-     * @return a {@code TaskImpl} representing the scheduled task. <strong>Null</strong> if using Consumer on non-Folia.
+     * @return a {@code TaskImpl} representing the scheduled task. <strong>Null</strong> if its target is already gone.
      * @throws UnsupportedOperationException if the task is not set
      */
     public @Nullable TaskImpl<Plugin> run() {
         if (this.task == null && this.taskConsumer == null)
             throw new UnsupportedOperationException("It seems that the task has not been set.");
-        return isFoliaDispatcher ? runFoliaTask() : runBukkitTask();
+        final Path path = path();
+        if (path == Path.CHUNK_LOAD) return runChunkLoadTask();
+        if (inlineIfOwned && isSynchronous && !hasInitialDelay() && ownsTarget()) return runInlineTask();
+
+        final PhaseSpreader.Slot slot = hasInitialDelay() && hasPeriod() && phasePolicy != PhaseSpreader.Policy.NONE
+                ? PhaseSpreader.reserve(plugin.getName(), phaseScope(), phaseTick(), initialDelayTicks, periodTicks, phasePolicy)
+                : null;
+        final Long delay = this.initialDelayTicks;
+        if (slot != null) this.initialDelayTicks = delay + slot.offset();
+        TaskImpl<Plugin> handle;
+        try {
+            handle = switch (path) {
+                case BULKHEAD -> runBulkheadTask();
+                case SHREDDED_PAPER -> runShreddedPaperTask();
+                case FOLIA -> runFoliaTask();
+                default -> runBukkitTask();
+            };
+        } finally {
+            this.initialDelayTicks = delay;
+        }
+        if (slot != null) PhaseSpreader.bind(slot, handle);
+
+        if (handle != null && hasInitialDelay() && hasPeriod() && TaskLeakDetector.isEnabled()) trackTarget(handle);
+        return handle;
+    }
+
+    /**
+     * Returns the scheduler {@link #run()} hands the task to, unless it runs inline.
+     *
+     * @return the path of the task
+     */
+    @NotNull Path path() {
+        if (awaitChunkLoad) return Path.CHUNK_LOAD;
+        if (!isSynchronous && bulkhead != null) return Path.BULKHEAD;
+        if (!isFoliaDispatcher) return Path.BUKKIT;
+        if (isSynchronous && dispatcher.handsOffToChunkOwner() && !hasInitialDelay() && (this.entity != null || this.world != null))
+            return Path.SHREDDED_PAPER;
+        return Path.FOLIA;
+    }
+
+    private void bindLocation(Location location) {
+        this.world = new WeakReference<>(location.getWorld());
+        this.x = location.getX();
+        this.y = location.getY();
+        this.z = location.getZ();
+        this.entity = null;
+    }
+
+    private @Nullable Entity entity() {
+        return this.entity != null ? this.entity.get() : null;
+    }
+
+    private @Nullable Location location() {
+        World w = this.world != null ? this.world.get() : null;
+        return w != null ? new Location(w, x, y, z) : null;
+    }
+
+    private @Nullable BooleanSupplier targetAlive() {
+        if (this.entity != null) {
+            final WeakReference<Entity> ref = this.entity;
+            return () -> {
+                Entity e = ref.get();
+                return e != null && !isRemoved(e);
+            };
+        }
+        if (this.world != null) {
+            final WeakReference<World> ref = this.world;
+            return () -> {
+                World w = ref.get();
+                return w != null && Bukkit.getWorld(w.getUID()) == w;
+            };
+        }
+        return null;
+    }
+
+    private static boolean hasCurrentTick() {
+        // Bukkit.getCurrentTick() is Paper API, Spigot does not have it.
+        try {
+            Bukkit.class.getMethod("getCurrentTick");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isRemoved(Entity entity) {
+        // Dead players are not valid until they respawn, but they are only removed when they leave.
+        return !entity.isValid() && !(entity instanceof Player player && player.isOnline());
+    }
+
+    private void trackTarget(TaskImpl<Plugin> handle) {
+        BooleanSupplier alive = targetAlive();
+        if (alive == null) return;
+        Entity e = entity();
+        Location l = location();
+        String target = e != null ? e.getType() + " " + e.getUniqueId()
+                : l != null ? "world " + l.getWorld().getName() + " at " + l.getBlockX() + ", " + l.getBlockY() + ", " + l.getBlockZ()
+                : "a target that is already gone";
+        TaskLeakDetector.track(handle, target, alive);
+    }
+
+    private boolean ownsTarget() {
+        final Entity entity = entity();
+        final Location location = entity == null ? location() : null;
+        if (this.entity != null && (entity == null || isRemoved(entity))) return false;
+        if (this.world != null && location == null) return false;
+        return switch (dispatcher) {
+            case Folia -> entity != null ? Bukkit.isOwnedByCurrentRegion(entity)
+                    : location != null ? Bukkit.isOwnedByCurrentRegion(location)
+                    : Bukkit.isGlobalTickThread();
+            case ShreddedPaper -> entity != null ? ShreddedPaperHook.isSync(entity)
+                    : location != null && ShreddedPaperHook.isSync(location);
+            case Bukkit -> Bukkit.isPrimaryThread();
+        };
+    }
+
+    private @NotNull String phaseScope() {
+        if (!isSynchronous) return bulkhead != null ? "async " + bulkhead.getName() : "async";
+        if (!isFoliaDispatcher) return "global";
+        final Entity entity = entity();
+        // The location of an entity can only be read by the thread owning it.
+        if (this.entity != null && (entity == null || !ownsTarget())) return "entities";
+        final Location location = entity != null ? entity.getLocation() : location();
+        if (location == null) return "global";
+        // Folia groups chunks in sections of 16 by 16 chunks, a region is made of one or more sections.
+        return "region " + location.getWorld().getName() + " " + (location.getBlockX() >> 8) + ", " + (location.getBlockZ() >> 8);
+    }
+
+    private long phaseTick() {
+        if (!isSynchronous) return PhaseSpreader.wallClockTick();
+        if (dispatcher != Dispatcher.Folia) return HAS_CURRENT_TICK ? Bukkit.getCurrentTick() : PhaseSpreader.wallClockTick();
+        // Region tasks count their delay in ticks of the region, which can only be read from its own thread.
+        // Other threads use the global tick, regions keeping up with 20 ticks per second stay in step with it.
+        long tick = (this.entity != null || this.world != null) && ownsTarget() ? FoliaHook.regionTick() : -1L;
+        if (tick < 0) tick = FoliaHook.globalTick();
+        return tick >= 0 ? tick : PhaseSpreader.wallClockTick();
+    }
+
+    private @NotNull TaskImpl<Plugin> runInlineTask() {
+        final InlineTask handle = new InlineTask(plugin);
+        consumer().accept(handle);
+        return handle;
+    }
+
+    private void retire() {
+        if (this.retired != null) this.retired.run();
     }
 
     private boolean hasInitialDelay() {
@@ -198,14 +559,95 @@ public class PluginSchedulerBuilder {
         return (isFoliaDispatcher && tick < MINIMUM_TICK) ? MINIMUM_TICK : tick;
     }
 
-    private void processScheduledTask(ScheduledTask scheduledTask) {
-        if (this.taskConsumer != null)
-            this.taskConsumer.accept(new FoliaScheduledTask(scheduledTask));
-        else this.task.run();
+    // The task is captured when it is scheduled, the builder may be given another task before it runs.
+    private @NotNull Consumer<ScheduledTask> processScheduledTask() {
+        final Runnable runnable = this.task;
+        final Consumer<? super TaskImpl<Plugin>> consumer = this.taskConsumer;
+        return consumer != null ? scheduledTask -> consumer.accept(new FoliaScheduledTask(scheduledTask))
+                : scheduledTask -> runnable.run();
+    }
+
+    private @Nullable TaskImpl<Plugin> runChunkLoadTask() {
+        final Location location = location();
+        if (location == null) {
+            retire();
+            return null;
+        }
+        return ChunkLoadIndex.of(plugin).park(location, consumer(), timeoutTicks, onTimeout, retired);
     }
 
-    private void processBukkitTask(BukkitTask bukkitTask) {
-        this.taskConsumer.accept(new SpigotScheduledTask(bukkitTask));
+    private @NotNull Consumer<? super TaskImpl<Plugin>> consumer() {
+        final Runnable runnable = this.task;
+        return this.taskConsumer != null ? this.taskConsumer : t -> runnable.run();
+    }
+
+    private @NotNull TaskImpl<Plugin> runBulkheadTask() {
+        final Bulkhead target = this.bulkhead;
+        final Runnable runnable = this.task;
+        final Consumer<? super TaskImpl<Plugin>> consumer = this.taskConsumer;
+        final boolean repeating = hasInitialDelay() && hasPeriod();
+        final Set<ExecutorScheduledTask<?>> owned = bulkheadTasks(plugin);
+        final ExecutorScheduledTask<Plugin> handle = new ExecutorScheduledTask<>(plugin, repeating, owned::remove);
+        owned.add(handle);
+        final Runnable body = () -> {
+            if (handle.isCancelled()) return;
+            try {
+                if (consumer != null) consumer.accept(handle);
+                else runnable.run();
+            } catch (Throwable e) {
+                plugin.getLogger().log(Level.WARNING, "Exception in task on bulkhead " + target.getName(), e);
+            } finally {
+                if (!repeating) owned.remove(handle);
+            }
+        };
+
+        try {
+            if (hasInitialDelay()) {
+                // A one-shot run that is rejected or skipped never runs its body, it is forgotten here instead.
+                handle.bind(target.schedule(body, initialDelayTicks * 50, hasPeriod() ? periodTicks * 50 : 0L, TimeUnit.MILLISECONDS,
+                        repeating ? null : e -> owned.remove(handle)));
+            } else {
+                CompletableFuture<Void> future = target.submit(body);
+                // Rejected or dropped tasks never run their body.
+                future.whenComplete((ignored, e) -> {
+                    if (e != null) owned.remove(handle);
+                });
+                handle.bind(future);
+            }
+        } catch (RuntimeException e) {
+            owned.remove(handle);
+            throw e;
+        }
+        return handle;
+    }
+
+    private static Set<ExecutorScheduledTask<?>> bulkheadTasks(Plugin plugin) {
+        return bulkheadTasks.computeIfAbsent(plugin, p -> {
+            // The server does not know about bulkhead tasks, they are cancelled when the plugin is disabled.
+            Bukkit.getPluginManager().registerEvents(new BulkheadTaskCleaner(p), p);
+            return ConcurrentHashMap.newKeySet();
+        });
+    }
+
+    private static void cancelBulkheadTasks(Plugin plugin) {
+        Set<ExecutorScheduledTask<?>> owned = bulkheadTasks.get(plugin);
+        if (owned == null) return;
+        for (ExecutorScheduledTask<?> t : owned) t.cancel();
+    }
+
+    private static final class BulkheadTaskCleaner implements Listener {
+        private final Plugin plugin;
+
+        private BulkheadTaskCleaner(Plugin plugin) {
+            this.plugin = plugin;
+        }
+
+        @EventHandler
+        public void onPluginDisable(PluginDisableEvent event) {
+            if (event.getPlugin() != plugin) return;
+            Set<ExecutorScheduledTask<?>> owned = bulkheadTasks.remove(plugin);
+            if (owned != null) for (ExecutorScheduledTask<?> t : owned) t.cancel();
+        }
     }
 
     private @Nullable TaskImpl<Plugin> runBukkitTask() {
@@ -221,83 +663,154 @@ public class PluginSchedulerBuilder {
         return new FoliaScheduledTask(newFoliaAsyncTask(), false);
     }
 
+    private @Nullable TaskImpl<Plugin> runShreddedPaperTask() {
+        final Entity entity = entity();
+        final Location location = entity == null ? location() : null;
+        if (entity == null && location == null) {
+            retire();
+            return null;
+        }
+
+        final ShreddedPaperScheduledTask handle = new ShreddedPaperScheduledTask(plugin);
+        final BooleanSupplier alive = targetAlive();
+        final Consumer<? super TaskImpl<Plugin>> consumer = consumer();
+        final Runnable retired = this.retired;
+        final Runnable body = () -> {
+            if (handle.isCancelled()) return;
+            // The target may be gone by the time its owning thread picks the task up, like on the other platforms.
+            if (alive != null && !alive.getAsBoolean()) {
+                handle.cancel();
+                if (retired != null) retired.run();
+                return;
+            }
+            consumer.accept(handle);
+        };
+        if (entity != null) ShreddedPaperHook.runSync(entity, body);
+        else ShreddedPaperHook.runSync(location, body);
+        return handle;
+    }
+
     private @Nullable ScheduledTask runFoliaSyncTask() {
         if (this.entity != null) return newFoliaEntityTask();
-        if (this.location != null) return newFoliaRegionTask();
+        if (this.world != null) return newFoliaRegionTask();
         return newFoliaGlobalRegionTask();
     }
 
     private @Nullable ScheduledTask newFoliaEntityTask() {
-        @NotNull EntityScheduler scheduler = this.entity.getScheduler();
+        final Entity entity = entity();
+        if (entity == null) {
+            retire();
+            return null;
+        }
+        @NotNull EntityScheduler scheduler = entity.getScheduler();
         if (hasInitialDelay()) {
             return hasPeriod()
-                    ? scheduler.runAtFixedRate(plugin, this::processScheduledTask, null, initialDelayTicks, periodTicks)
-                    : scheduler.runDelayed(plugin, this::processScheduledTask, null, initialDelayTicks);
+                    ? scheduler.runAtFixedRate(plugin, processScheduledTask(), retired, initialDelayTicks, periodTicks)
+                    : scheduler.runDelayed(plugin, processScheduledTask(), retired, initialDelayTicks);
         }
-        return scheduler.run(plugin, this::processScheduledTask, null);
+        return scheduler.run(plugin, processScheduledTask(), retired);
     }
 
-    private @NotNull ScheduledTask newFoliaRegionTask() {
+    private @Nullable ScheduledTask newFoliaRegionTask() {
+        final Location location = location();
+        if (location == null) {
+            retire();
+            return null;
+        }
         @NotNull RegionScheduler scheduler = Bukkit.getRegionScheduler();
         if (hasInitialDelay()) return hasPeriod()
-                ? scheduler.runAtFixedRate(plugin, location, this::processScheduledTask, initialDelayTicks, periodTicks)
-                : scheduler.runDelayed(plugin, location, this::processScheduledTask, initialDelayTicks);
-        return scheduler.run(plugin, location, this::processScheduledTask);
+                ? scheduler.runAtFixedRate(plugin, location, processScheduledTask(), initialDelayTicks, periodTicks)
+                : scheduler.runDelayed(plugin, location, processScheduledTask(), initialDelayTicks);
+        return scheduler.run(plugin, location, processScheduledTask());
     }
 
     private @NotNull ScheduledTask newFoliaGlobalRegionTask() {
         @NotNull GlobalRegionScheduler scheduler = Bukkit.getGlobalRegionScheduler();
         if (hasInitialDelay()) return hasPeriod()
-                ? scheduler.runAtFixedRate(plugin, this::processScheduledTask, initialDelayTicks, periodTicks)
-                : scheduler.runDelayed(plugin, this::processScheduledTask, initialDelayTicks);
-        return scheduler.run(plugin, this::processScheduledTask);
+                ? scheduler.runAtFixedRate(plugin, processScheduledTask(), initialDelayTicks, periodTicks)
+                : scheduler.runDelayed(plugin, processScheduledTask(), initialDelayTicks);
+        return scheduler.run(plugin, processScheduledTask());
     }
 
     private @NotNull ScheduledTask newFoliaAsyncTask() {
         @NotNull AsyncScheduler scheduler = Bukkit.getAsyncScheduler();
         if (hasInitialDelay()) return hasPeriod()
-                ? scheduler.runAtFixedRate(plugin, this::processScheduledTask, initialDelayTicks * 50, periodTicks * 50, TimeUnit.MILLISECONDS)
-                : scheduler.runDelayed(plugin, this::processScheduledTask, initialDelayTicks * 50, TimeUnit.MILLISECONDS);
-        return scheduler.runNow(plugin, this::processScheduledTask);
+                ? scheduler.runAtFixedRate(plugin, processScheduledTask(), initialDelayTicks * 50, periodTicks * 50, TimeUnit.MILLISECONDS)
+                : scheduler.runDelayed(plugin, processScheduledTask(), initialDelayTicks * 50, TimeUnit.MILLISECONDS);
+        return scheduler.runNow(plugin, processScheduledTask());
+    }
+
+    private @Nullable TaskImpl<Plugin> newBukkitBoundTask() {
+        final BooleanSupplier alive = targetAlive();
+        if (alive == null || !alive.getAsBoolean()) {
+            retire();
+            return null;
+        }
+
+        final SpigotBoundTask bound = new SpigotBoundTask(plugin, alive, consumer(), retired, hasInitialDelay() && hasPeriod());
+        if (hasInitialDelay()) {
+            if (hasPeriod()) bound.runTaskTimer(plugin, initialDelayTicks, periodTicks);
+            else bound.runTaskLater(plugin, initialDelayTicks);
+        } else bound.runTask(plugin);
+        return bound;
     }
 
     private @Nullable TaskImpl<Plugin> newBukkitSyncTask(BukkitScheduler scheduler) {
+        if (this.entity != null || this.world != null) return newBukkitBoundTask();
+        if (this.taskConsumer != null) return newBukkitConsumerTask(true);
         if (hasInitialDelay()) {
-            if (hasPeriod())
-                if (this.taskConsumer != null) {
-                    scheduler.runTaskTimer(plugin, this::processBukkitTask, initialDelayTicks, periodTicks);
-                    return null;
-                } else return new SpigotScheduledTask(scheduler.runTaskTimer(plugin, task, initialDelayTicks, periodTicks));
-            else {
-                if (this.taskConsumer != null) {
-                    scheduler.runTaskLater(plugin, this::processBukkitTask, initialDelayTicks);return null;
-                } else return new SpigotScheduledTask(scheduler.runTaskLater(plugin, task, initialDelayTicks));
-            }
+            if (hasPeriod()) return new SpigotScheduledTask(scheduler.runTaskTimer(plugin, task, initialDelayTicks, periodTicks));
+            else return new SpigotScheduledTask(scheduler.runTaskLater(plugin, task, initialDelayTicks));
         }
-        if (this.taskConsumer != null) {
-            scheduler.runTask(plugin, this::processBukkitTask);
-            return null;
-        } else return new SpigotScheduledTask(scheduler.runTask(plugin, task));
+        return new SpigotScheduledTask(scheduler.runTask(plugin, task));
     }
 
-    private @Nullable TaskImpl<Plugin> newBukkitAsyncTask(BukkitScheduler scheduler) {
+    private @NotNull TaskImpl<Plugin> newBukkitAsyncTask(BukkitScheduler scheduler) {
+        if (this.taskConsumer != null) return newBukkitConsumerTask(false);
         if (hasInitialDelay()) {
             if (hasPeriod())
-                if (this.taskConsumer != null) {
-                    scheduler.runTaskTimerAsynchronously(plugin, this::processBukkitTask, initialDelayTicks, periodTicks);
-                    return null;
-                } else
-                    return new SpigotScheduledTask(scheduler.runTaskTimerAsynchronously(plugin, task, initialDelayTicks, periodTicks));
-            else {
-                if (this.taskConsumer != null) {
-                    scheduler.runTaskLaterAsynchronously(plugin, this::processBukkitTask, initialDelayTicks);
-                    return null;
-                } else return new SpigotScheduledTask(scheduler.runTaskLaterAsynchronously(plugin, task, initialDelayTicks));
-            }
+                return new SpigotScheduledTask(scheduler.runTaskTimerAsynchronously(plugin, task, initialDelayTicks, periodTicks));
+            else return new SpigotScheduledTask(scheduler.runTaskLaterAsynchronously(plugin, task, initialDelayTicks));
         }
-        if (this.taskConsumer != null) {
-            scheduler.runTaskAsynchronously(plugin, this::processBukkitTask);
-            return null;
-        } else return new SpigotScheduledTask(scheduler.runTaskAsynchronously(plugin, task));
+        return new SpigotScheduledTask(scheduler.runTaskAsynchronously(plugin, task));
+    }
+
+    private @NotNull TaskImpl<Plugin> newBukkitConsumerTask(boolean sync) {
+        final SpigotConsumerTask handle = new SpigotConsumerTask(plugin, this.taskConsumer, hasInitialDelay() && hasPeriod(), sync);
+        if (hasInitialDelay()) {
+            if (hasPeriod()) {
+                if (sync) handle.runTaskTimer(plugin, initialDelayTicks, periodTicks);
+                else handle.runTaskTimerAsynchronously(plugin, initialDelayTicks, periodTicks);
+            } else if (sync) handle.runTaskLater(plugin, initialDelayTicks);
+            else handle.runTaskLaterAsynchronously(plugin, initialDelayTicks);
+        } else if (sync) handle.runTask(plugin);
+        else handle.runTaskAsynchronously(plugin);
+        return handle;
+    }
+
+    /**
+     * The schedulers a task can be handed to, see {@link #path()}.
+     */
+    enum Path {
+        /**
+         * Parked in the {@link ChunkLoadIndex} until its chunk loads.
+         */
+        CHUNK_LOAD,
+        /**
+         * Submitted to a {@link Bulkhead}.
+         */
+        BULKHEAD,
+        /**
+         * Handed to the thread owning the chunk or entity through {@link ShreddedPaperHook}.
+         */
+        SHREDDED_PAPER,
+        /**
+         * Region, entity, global region or async scheduler of Folia.
+         */
+        FOLIA,
+        /**
+         * The {@code BukkitScheduler}.
+         */
+        BUKKIT
     }
 }
@@ -0,0 +1,209 @@
+package one.tranic.irs;
+
+import one.tranic.irs.executor.Bulkhead;
+import one.tranic.irs.executor.SharedExecutor;
+import one.tranic.irs.task.ExecutorScheduledTask;
+import one.tranic.irs.task.TaskImpl;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builder class for scheduling tasks on Velocity or BungeeCord.
+ * <p>
+ * It mirrors {@link PluginSchedulerBuilder}, but since proxies have neither a main thread nor worlds,
+ * every task is asynchronous. Delays and periods are still expressed in ticks (50 milliseconds) so that
+ * shared code can use the same values on both sides of the network.
+ * <p>
+ * Tasks run on the {@link SharedExecutor} instead of the per-plugin thread pools of the proxy schedulers,
+ * or on a {@link Bulkhead} set with {@link #async(Bulkhead)}.
+ * <p>
+ * <strong>The proxy does not know about these tasks</strong>, so they are not cancelled when the plugin is disabled
+ * or the proxy shuts down. Plugins must call {@link #cancelTasks()} from {@code Plugin#onDisable} on BungeeCord,
+ * and from their {@code ProxyShutdownEvent} listener on Velocity.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * // Velocity
+ * ProxySchedulerBuilder.velocity(plugin)
+ *     .task(() -> logger.info("Task executed!"))
+ *     .delayTicks(20L)
+ *     .run();
+ *
+ * // BungeeCord
+ * ProxySchedulerBuilder.bungee(plugin)
+ *     .task(() -> plugin.getLogger().info("Task executed!"))
+ *     .delayTicks(20L)
+ *     .period(20L)
+ *     .run();
+ * }
+ * </pre>
+ *
+ * @param <P> the plugin type of the proxy
+ */
+public class ProxySchedulerBuilder<P> {
+    private static final long TICK_MILLIS = 50L;
+    private static final Map<Object, Set<ExecutorScheduledTask<?>>> tasks = new ConcurrentHashMap<>();
+
+    private final P plugin;
+    private final Logger logger;
+    private Long initialDelayTicks;
+    private Long periodTicks;
+    private Runnable task;
+    private Consumer<? super TaskImpl<P>> taskConsumer;
+    private Bulkhead bulkhead = SharedExecutor.getBulkhead();
+
+    /**
+     * Constructs a new {@code ProxySchedulerBuilder} for the given plugin.
+     *
+     * @param plugin the plugin instance to associate with this scheduler builder
+     * @param logger the logger used to report exceptions thrown by tasks
+     */
+    public ProxySchedulerBuilder(@NotNull P plugin, @NotNull Logger logger) {
+        this.plugin = plugin;
+        this.logger = logger;
+    }
+
+    /**
+     * Creates a new builder for a Velocity plugin.
+     *
+     * @param plugin the plugin instance (the object annotated with {@code @Plugin})
+     * @return a new {@code ProxySchedulerBuilder} instance
+     */
+    public static ProxySchedulerBuilder<Object> velocity(@NotNull Object plugin) {
+        return new ProxySchedulerBuilder<>(plugin, Logger.getLogger(plugin.getClass().getName()));
+    }
+
+    /**
+     * Creates a new builder for a BungeeCord plugin.
+     *
+     * @param plugin the plugin instance
+     * @return a new {@code ProxySchedulerBuilder} instance
+     */
+    public static ProxySchedulerBuilder<net.md_5.bungee.api.plugin.Plugin> bungee(@NotNull net.md_5.bungee.api.plugin.Plugin plugin) {
+        return new ProxySchedulerBuilder<>(plugin, plugin.getLogger());
+    }
+
+    /**
+     * Cancels all tasks scheduled by the plugin of this builder.
+     * <p>
+     * Must be called when the plugin is disabled, otherwise its repeating tasks keep running
+     * and keep its class loader in memory.
+     */
+    public void cancelTasks() {
+        Set<ExecutorScheduledTask<?>> owned = tasks.remove(plugin);
+        if (owned == null) return;
+        for (ExecutorScheduledTask<?> t : owned) t.cancel();
+    }
+
+    /**
+     * Configures the task to run on the {@link SharedExecutor}, which is the default.
+     * Proxy tasks are always asynchronous.
+     *
+     * @return this builder instance for method chaining
+     */
+    public ProxySchedulerBuilder<P> async() {
+        this.bulkhead = SharedExecutor.getBulkhead();
+        return this;
+    }
+
+    /**
+     * Configures the task to run on the given bulkhead instead of the {@link SharedExecutor}.
+     *
+     * @param bulkhead the bulkhead running the task
+     * @return this builder instance for method chaining
+     */
+    public ProxySchedulerBuilder<P> async(@NotNull Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    /**
+     * Sets the task to be executed.
+     *
+     * @param runnable the task to execute
+     * @return this builder instance for method chaining
+     */
+    public ProxySchedulerBuilder<P> task(@NotNull Runnable runnable) {
+        this.task = runnable;
+        this.taskConsumer = null;
+        return this;
+    }
+
+    /**
+     * Sets the task to be executed.
+     *
+     * @param task the task to execute
+     * @return this builder instance for method chaining
+     */
+    public ProxySchedulerBuilder<P> task(@NotNull Consumer<? super TaskImpl<P>> task) {
+        this.taskConsumer = task;
+        this.task = null;
+        return this;
+    }
+
+    /**
+     * Sets the initial delay in ticks before the task is executed.
+     *
+     * @param delayTicks the number of ticks to delay
+     * @return this builder instance for method chaining
+     */
+    public ProxySchedulerBuilder<P> delayTicks(long delayTicks) {
+        this.initialDelayTicks = Math.max(0L, delayTicks);
+        return this;
+    }
+
+    /**
+     * Sets the period in ticks between consecutive executions of the task.
+     * <p>
+     * Like {@link PluginSchedulerBuilder}, the period is only used together with {@link #delayTicks(long)}.
+     *
+     * @param period the number of ticks between executions
+     * @return this builder instance for method chaining
+     */
+    public ProxySchedulerBuilder<P> period(long period) {
+        this.periodTicks = Math.max(1L, period);
+        return this;
+    }
+
+    /**
+     * Builds and schedules the task based on the configured parameters.
+     *
+     * @return a {@code TaskImpl} representing the scheduled task
+     * @throws UnsupportedOperationException if the task is not set
+     */
+    public @NotNull TaskImpl<P> run() {
+        if (this.task == null && this.taskConsumer == null)
+            throw new UnsupportedOperationException("It seems that the task has not been set.");
+
+        final Runnable runnable = this.task;
+        final Consumer<? super TaskImpl<P>> consumer = this.taskConsumer;
+        final boolean repeating = initialDelayTicks != null && periodTicks != null;
+        final long delay = initialDelayTicks != null ? initialDelayTicks * TICK_MILLIS : 0L;
+        final long period = repeating ? periodTicks * TICK_MILLIS : 0L;
+
+        final Set<ExecutorScheduledTask<?>> owned = tasks.computeIfAbsent(plugin, k -> ConcurrentHashMap.newKeySet());
+        final ExecutorScheduledTask<P> handle = new ExecutorScheduledTask<>(plugin, repeating, owned::remove);
+        owned.add(handle);
+
+        handle.bind(bulkhead.schedule(() -> {
+            if (handle.isCancelled()) return;
+            try {
+                if (consumer != null) consumer.accept(handle);
+                else runnable.run();
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Exception in task scheduled by IRS", e);
+            } finally {
+                if (!repeating) owned.remove(handle);
+            }
+        }, delay, period, TimeUnit.MILLISECONDS));
+        return handle;
+    }
+}
@@ -0,0 +1,242 @@
+package one.tranic.irs;
+
+import io.papermc.paper.threadedregions.RegionizedData;
+import io.papermc.paper.threadedregions.TickRegionScheduler;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.server.level.ServerLevel;
+import one.tranic.irs.platform.Platform;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Storage with one value per region, similar to a {@link ThreadLocal} scoped to the region owning a location.
+ * <p>
+ * On Folia, every region gets its own value, which can be used without synchronization from tasks
+ * scheduled with {@link PluginSchedulerBuilder#sync(Location)} or {@link PluginSchedulerBuilder#sync(org.bukkit.entity.Entity)}.
+ * When Folia merges two regions, the {@link Merger} moves the state of one value into the other.
+ * When a region splits, the {@link Splitter} distributes the state over the values of the new regions.
+ * <p>
+ * On all other platforms there is only a single value. Note that ShreddedPaper ticks chunks on several threads
+ * without regions, so the value has to be synchronized by the caller there.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * RegionLocal<Long2IntOpenHashMap> counters = RegionLocal.withInitial(
+ *     Long2IntOpenHashMap::new,
+ *     (from, into) -> from.forEach((chunk, count) -> into.addTo(chunk, count)),
+ *     (from, router) -> from.forEach((chunk, count) ->
+ *         router.forChunk((int) (long) chunk, (int) (chunk >>> 32)).put(chunk, count)));
+ *
+ * PluginSchedulerBuilder.builder(plugin)
+ *     .sync(location)
+ *     .task(() -> counters.get(location).addTo(location.getChunk().getChunkKey(), 1))
+ *     .run();
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the value
+ */
+public final class RegionLocal<T> {
+    private final Supplier<T> initial;
+    private final Merger<T> merger;
+    private final Splitter<T> splitter;
+    private final Regionized<T> regionized;
+    private volatile T single;
+
+    private RegionLocal(Supplier<T> initial, Merger<T> merger, Splitter<T> splitter) {
+        this.initial = initial;
+        this.merger = merger;
+        this.splitter = splitter;
+        this.regionized = Platform.get() == Platform.Folia ? new Regionized<>(this) : null;
+    }
+
+    /**
+     * Creates a new region local.
+     *
+     * @param initial  creates the value of a new region
+     * @param merger   moves the state of a region into the region it is merged with
+     * @param splitter distributes the state of a region over the regions it is split into
+     * @param <T>      the type of the value
+     * @return the region local
+     */
+    public static <T> @NotNull RegionLocal<T> withInitial(@NotNull Supplier<T> initial,
+                                                          @NotNull Merger<T> merger,
+                                                          @NotNull Splitter<T> splitter) {
+        return new RegionLocal<>(initial, merger, splitter);
+    }
+
+    /**
+     * Returns the value of the region owning the location.
+     *
+     * @param location the location, which must be owned by the current thread
+     * @return the value of the region
+     * @throws IllegalStateException if the current thread does not own the location
+     */
+    public @NotNull T get(@NotNull Location location) {
+        if (regionized == null) return single();
+        if (!Bukkit.isOwnedByCurrentRegion(location))
+            throw new IllegalStateException("The current thread does not own " + location);
+        return regionized.get(location.getWorld());
+    }
+
+    /**
+     * Returns the value of the region ticked by the current thread.
+     *
+     * @param world the world of the current region
+     * @return the value of the region
+     * @throws IllegalStateException if the current thread is not ticking a region
+     */
+    public @NotNull T get(@NotNull World world) {
+        return regionized == null ? single() : regionized.get(world);
+    }
+
+    /**
+     * Drops the values of an unloaded world.
+     *
+     * @param world the world
+     */
+    public void remove(@NotNull World world) {
+        if (regionized != null) regionized.remove(world);
+    }
+
+    private T single() {
+        T value = single;
+        if (value == null) {
+            synchronized (this) {
+                value = single;
+                if (value == null) single = value = initial.get();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Moves the state of a region into the region it is merged with.
+     *
+     * @param <T> the type of the value
+     */
+    @FunctionalInterface
+    public interface Merger<T> {
+        /**
+         * @param from the value of the region that is going away
+         * @param into the value of the region that remains
+         */
+        void merge(T from, T into);
+    }
+
+    /**
+     * Distributes the state of a region over the regions it is split into.
+     *
+     * @param <T> the type of the value
+     */
+    @FunctionalInterface
+    public interface Splitter<T> {
+        /**
+         * @param from   the value of the region that is being split
+         * @param router gives access to the values of the new regions
+         */
+        void split(T from, Router<T> router);
+    }
+
+    /**
+     * Gives access to the values of the new regions during a split.
+     *
+     * @param <T> the type of the value
+     */
+    public interface Router<T> {
+        /**
+         * Returns the value of the new region containing the chunk.
+         *
+         * @param chunkX the chunk x coordinate
+         * @param chunkZ the chunk z coordinate
+         * @return the value of the new region
+         */
+        T forChunk(int chunkX, int chunkZ);
+
+        /**
+         * Returns the values of all new regions.
+         *
+         * @return the values of the new regions
+         */
+        Collection<T> targets();
+    }
+
+    private static final class Regionized<T> implements RegionizedData.RegioniserCallback<T> {
+        private static final MethodHandle GET_HANDLE;
+
+        static {
+            try {
+                Class<?> craftWorld = Class.forName(Bukkit.getServer().getClass().getPackageName() + ".CraftWorld");
+                GET_HANDLE = MethodHandles.publicLookup()
+                        .findVirtual(craftWorld, "getHandle", MethodType.methodType(ServerLevel.class))
+                        .asType(MethodType.methodType(ServerLevel.class, World.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final RegionLocal<T> owner;
+        private final Map<UUID, RegionizedData<T>> worlds = new ConcurrentHashMap<>();
+
+        private Regionized(RegionLocal<T> owner) {
+            this.owner = owner;
+        }
+
+        T get(World world) {
+            RegionizedData<T> data = worlds.get(world.getUID());
+            if (data == null) data = worlds.computeIfAbsent(world.getUID(), k -> new RegionizedData<>(handle(world), owner.initial, this));
+
+            T value = data.get();
+            if (value == null || TickRegionScheduler.getCurrentRegionizedWorldData().world.getWorld() != world)
+                throw new IllegalStateException("The current thread is not ticking a region of " + world.getName());
+            return value;
+        }
+
+        void remove(World world) {
+            worlds.remove(world.getUID());
+        }
+
+        private static ServerLevel handle(World world) {
+            try {
+                return (ServerLevel) GET_HANDLE.invokeExact(world);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void merge(T from, T into, long fromTickOffset) {
+            owner.merger.merge(from, into);
+        }
+
+        @Override
+        public void split(T from, int chunkToRegionShift, Long2ReferenceOpenHashMap<T> regionToData, ReferenceOpenHashSet<T> dataSet) {
+            owner.splitter.split(from, new Router<>() {
+                @Override
+                public T forChunk(int chunkX, int chunkZ) {
+                    int regionX = chunkX >> chunkToRegionShift;
+                    int regionZ = chunkZ >> chunkToRegionShift;
+                    return regionToData.get(((long) regionZ << 32) | (regionX & 0xFFFFFFFFL));
+                }
+
+                @Override
+                public Collection<T> targets() {
+                    return dataSet;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package one.tranic.irs;
+
+import one.tranic.irs.executor.Bulkhead;
+import one.tranic.irs.executor.SharedExecutor;
+import one.tranic.irs.task.TaskImpl;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * {@link Flow.Publisher} emitting a value every period of a repeating task, created with
+ * {@link PluginSchedulerBuilder#publish(Supplier)}.
+ * <p>
+ * The values are produced by the supplier on the thread running the task, so they can read the entity, region or
+ * global state the builder targets. They are delivered to the subscriber on another executor, the
+ * {@link SharedExecutor} by default, and never more than it requested. The shared executor fails fast when it is
+ * saturated, so the subscriber is never called on the tick thread: the delivery is retried on a later signal.
+ * <p>
+ * The supplier is only called while the subscriber has outstanding demand. When the subscriber requested more than
+ * it can keep up with, the {@link Overflow} strategy bounds the values waiting for delivery.
+ * <p>
+ * Each subscription schedules its own task, which is cancelled with the subscription. The stream completes when
+ * the target of the task is gone, see {@link PluginSchedulerBuilder#retired(Runnable)}.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * PluginSchedulerBuilder.builder(plugin)
+ *     .sync(player)
+ *     .publish(() -> player.getLocation().toVector())
+ *     .overflow(TickPublisher.Overflow.LATEST)
+ *     .subscribe(recorder);
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the values
+ */
+public final class TickPublisher<T> implements Flow.Publisher<T> {
+    private static final long RETRY_DELAY_MILLIS = 50L;
+
+    private final PluginSchedulerBuilder builder;
+    private final Supplier<? extends T> supplier;
+    private final Runnable retired;
+    private Overflow overflow = Overflow.DROP;
+    private int bufferSize = 256;
+    private Executor executor = SharedExecutor.getBulkhead();
+
+    TickPublisher(@NotNull PluginSchedulerBuilder builder, @NotNull Supplier<? extends T> supplier, @Nullable Runnable retired) {
+        this.builder = builder;
+        this.supplier = supplier;
+        this.retired = retired;
+    }
+
+    /**
+     * Sets what happens when the values are produced faster than the subscriber consumes them.
+     *
+     * @param overflow the overflow strategy, {@link Overflow#DROP} by default
+     * @return this publisher instance for method chaining
+     */
+    public TickPublisher<T> overflow(@NotNull Overflow overflow) {
+        this.overflow = overflow;
+        return this;
+    }
+
+    /**
+     * Sets the overflow strategy and the maximum number of values waiting for delivery.
+     *
+     * @param overflow   the overflow strategy
+     * @param bufferSize the size of the buffer, ignored by {@link Overflow#LATEST}
+     * @return this publisher instance for method chaining
+     */
+    public TickPublisher<T> overflow(@NotNull Overflow overflow, int bufferSize) {
+        if (bufferSize < 1) throw new IllegalArgumentException("bufferSize must be at least 1");
+        this.overflow = overflow;
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Sets the executor calling the subscriber, the {@link SharedExecutor} by default.
+     * <p>
+     * The executor should never run tasks on the submitting thread, otherwise the subscriber may be called on the
+     * thread running the task, such as a bulkhead with {@link one.tranic.irs.executor.RejectionPolicy#CALLER_RUNS}.
+     *
+     * @param executor the executor, usually a {@link Bulkhead}
+     * @return this publisher instance for method chaining
+     */
+    public TickPublisher<T> deliverOn(@NotNull Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        TickSubscription subscription = new TickSubscription(subscriber, overflow, bufferSize, executor);
+        subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) return;
+
+        TaskImpl<Plugin> handle;
+        synchronized (builder) {
+            handle = builder.task(subscription::tick).retired(subscription::retired).run();
+        }
+        subscription.bind(handle);
+    }
+
+    /**
+     * What happens with the values the subscriber cannot consume yet.
+     */
+    public enum Overflow {
+        /**
+         * Skips the tick, without calling the supplier, while the buffer is full.
+         */
+        DROP,
+        /**
+         * Keeps only the latest value, replacing the one waiting for delivery.
+         */
+        LATEST,
+        /**
+         * Buffers the values and fails the stream with an {@link IllegalStateException} once the buffer is full.
+         */
+        BUFFER
+    }
+
+    private final class TickSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Overflow overflow;
+        private final int bufferSize;
+        private final Executor executor;
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong produced = new AtomicLong();
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicReference<T> latest = new AtomicReference<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile TaskImpl<Plugin> handle;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Throwable error;
+
+        private TickSubscription(Flow.Subscriber<? super T> subscriber, Overflow overflow, int bufferSize, Executor executor) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+            this.bufferSize = bufferSize;
+            this.executor = executor;
+        }
+
+        private void bind(@Nullable TaskImpl<Plugin> handle) {
+            this.handle = handle;
+            if (handle == null) {
+                // The target was already gone, retired() completed the stream.
+                return;
+            }
+            if (cancelled || done) handle.cancel();
+        }
+
+        private void tick() {
+            if (cancelled || done) {
+                TaskImpl<Plugin> h = handle;
+                if (h != null) h.cancel();
+                return;
+            }
+            if (produced.get() >= requested.get()) return;
+
+            boolean latestStrategy = overflow == Overflow.LATEST;
+            if (!latestStrategy && queued.get() >= bufferSize) {
+                if (overflow == Overflow.BUFFER)
+                    fail(new IllegalStateException("Buffer of " + bufferSize + " values is full, the subscriber is too slow"));
+                return;
+            }
+
+            T value;
+            try {
+                value = supplier.get();
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            if (value == null) return;
+
+            if (latestStrategy) {
+                if (latest.getAndSet(value) == null) produced.incrementAndGet();
+            } else {
+                queue.offer(value);
+                queued.incrementAndGet();
+                produced.incrementAndGet();
+            }
+            drain();
+        }
+
+        private void retired() {
+            if (retired != null) retired.run();
+            done = true;
+            drain();
+        }
+
+        private void fail(Throwable e) {
+            error = e;
+            done = true;
+            TaskImpl<Plugin> h = handle;
+            if (h != null) h.cancel();
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+            requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            // Values waiting for a drain that was rejected are delivered without waiting for the next tick.
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            TaskImpl<Plugin> h = handle;
+            if (h != null) h.cancel();
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            try {
+                if (executor instanceof Bulkhead bulkhead) {
+                    bulkhead.submit(this::drainLoop).whenComplete((ignored, e) -> {
+                        if (e != null) rejected();
+                    });
+                } else executor.execute(this::drainLoop);
+            } catch (RejectedExecutionException e) {
+                rejected();
+            }
+        }
+
+        private void rejected() {
+            // The executor rejected or dropped the drain. No signal may follow: the stream may be done, or the supplier
+            // is not called again until the waiting values are delivered. The drain is retried until it runs.
+            wip.set(0);
+            if (!cancelled)
+                CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(this::drain);
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+            for (; ; ) {
+                if (cancelled) {
+                    clear();
+                    return;
+                }
+
+                T value;
+                while ((value = poll()) != null) {
+                    try {
+                        subscriber.onNext(value);
+                    } catch (Throwable e) {
+                        cancel();
+                        clear();
+                        return;
+                    }
+                    if (cancelled) {
+                        clear();
+                        return;
+                    }
+                }
+
+                if (done && queued.get() == 0 && latest.get() == null) {
+                    cancelled = true;
+                    Throwable e = error;
+                    if (e != null) subscriber.onError(e);
+                    else subscriber.onComplete();
+                    return;
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+
+        private @Nullable T poll() {
+            if (overflow == Overflow.LATEST) return latest.getAndSet(null);
+            T value = queue.poll();
+            if (value != null) queued.decrementAndGet();
+            return value;
+        }
+
+        private void clear() {
+            queue.clear();
+            queued.set(0);
+            latest.set(null);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package one.tranic.irs.chunk;
+
+import one.tranic.irs.PluginSchedulerBuilder;
+import one.tranic.irs.task.ParkedChunkTask;
+import one.tranic.irs.task.TaskImpl;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Index of tasks waiting for a chunk to load, used by {@link PluginSchedulerBuilder#whenChunkLoaded(Location)}.
+ * <p>
+ * Parked tasks are only kept in a map keyed by chunk, nothing polls them. When the chunk loads, all tasks
+ * waiting for it are run together in a single task on the region owning the chunk (the main thread on Spigot/Paper).
+ * When the world is unloaded, its tasks are retired instead.
+ */
+public final class ChunkLoadIndex implements Listener {
+    private static final Map<Plugin, ChunkLoadIndex> indexes = new ConcurrentHashMap<>();
+
+    private final Plugin plugin;
+    private final Map<Key, List<ParkedChunkTask>> parked = new ConcurrentHashMap<>();
+
+    private ChunkLoadIndex(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Returns the index of the plugin, registering its listener on first use.
+     *
+     * @param plugin the plugin owning the tasks
+     * @return the index of the plugin
+     */
+    public static @NotNull ChunkLoadIndex of(@NotNull Plugin plugin) {
+        return indexes.computeIfAbsent(plugin, p -> {
+            ChunkLoadIndex index = new ChunkLoadIndex(p);
+            Bukkit.getPluginManager().registerEvents(index, p);
+            return index;
+        });
+    }
+
+    /**
+     * Parks the task until the chunk at the location is loaded.
+     * If the chunk is already loaded, the task is scheduled right away.
+     *
+     * @param location     the location in the chunk
+     * @param task         the task to run once the chunk is loaded
+     * @param timeoutTicks the number of ticks after which the task is cancelled, or 0 to wait forever
+     * @param onTimeout    called on the global region (the main thread on Spigot/Paper) if the task timed out
+     * @return the handle of the parked task
+     */
+    public @NotNull ParkedChunkTask park(@NotNull Location location, @NotNull Consumer<? super TaskImpl<Plugin>> task,
+                                         long timeoutTicks, @Nullable Runnable onTimeout) {
+        return park(location, task, timeoutTicks, onTimeout, null);
+    }
+
+    /**
+     * Parks the task until the chunk at the location is loaded.
+     * If the chunk is already loaded, the task is scheduled right away.
+     *
+     * @param location     the location in the chunk
+     * @param task         the task to run once the chunk is loaded
+     * @param timeoutTicks the number of ticks after which the task is cancelled, or 0 to wait forever
+     * @param onTimeout    called on the global region (the main thread on Spigot/Paper) if the task timed out
+     * @param retired      called on the thread unloading the world if it is unloaded before the chunk loads
+     * @return the handle of the parked task
+     */
+    public @NotNull ParkedChunkTask park(@NotNull Location location, @NotNull Consumer<? super TaskImpl<Plugin>> task,
+                                         long timeoutTicks, @Nullable Runnable onTimeout, @Nullable Runnable retired) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        Key key = new Key(world.getUID(), chunkX, chunkZ);
+
+        ParkedChunkTask parkedTask = new ParkedChunkTask(plugin, task, t -> remove(key, t), retired);
+        parked.compute(key, (k, tasks) -> {
+            if (tasks == null) tasks = new ArrayList<>(2);
+            tasks.add(parkedTask);
+            return tasks;
+        });
+
+        if (timeoutTicks > 0) {
+            parkedTask.bindTimeout(PluginSchedulerBuilder.builder(plugin)
+                    .sync()
+                    .delayTicks(timeoutTicks)
+                    .task(() -> {
+                        if (parkedTask.expire() && onTimeout != null) onTimeout.run();
+                    })
+                    .run());
+        }
+
+        if (world.isChunkLoaded(chunkX, chunkZ)) drain(world, chunkX, chunkZ);
+        return parkedTask;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a chunk to load.
+     *
+     * @return the number of parked tasks
+     */
+    public int size() {
+        int size = 0;
+        for (List<ParkedChunkTask> tasks : parked.values()) size += tasks.size();
+        return size;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (parked.isEmpty()) return;
+        Chunk chunk = event.getChunk();
+        drain(chunk.getWorld(), chunk.getX(), chunk.getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        // The chunks of the world will never load again, the tasks and their closures would stay parked forever.
+        UUID uid = event.getWorld().getUID();
+        for (Key key : parked.keySet()) {
+            if (!key.world().equals(uid)) continue;
+            List<ParkedChunkTask> tasks = parked.remove(key);
+            if (tasks == null) continue;
+            for (ParkedChunkTask task : tasks) {
+                try {
+                    task.retire();
+                } catch (Throwable e) {
+                    plugin.getLogger().log(Level.WARNING, "Exception in retired callback of task waiting for chunk "
+                            + key.chunkX() + ", " + key.chunkZ(), e);
+                }
+            }
+        }
+    }
+
+    @EventHandler
+    public void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() != plugin) return;
+        indexes.remove(plugin, this);
+        parked.clear();
+    }
+
+    private void remove(Key key, ParkedChunkTask task) {
+        parked.computeIfPresent(key, (k, tasks) -> {
+            tasks.remove(task);
+            return tasks.isEmpty() ? null : tasks;
+        });
+    }
+
+    private void drain(World world, int chunkX, int chunkZ) {
+        List<ParkedChunkTask> tasks = parked.remove(new Key(world.getUID(), chunkX, chunkZ));
+        if (tasks == null) return;
+
+        PluginSchedulerBuilder.builder(plugin)
+                .sync(new Location(world, (chunkX << 4) + 8, 0, (chunkZ << 4) + 8))
+                .task(() -> {
+                    for (ParkedChunkTask task : tasks) {
+                        try {
+                            task.fire();
+                        } catch (Throwable e) {
+                            plugin.getLogger().log(Level.WARNING, "Exception in task waiting for chunk " + chunkX + ", " + chunkZ, e);
+                        }
+                    }
+                })
+                .run();
+    }
+
+    private record Key(UUID world, int chunkX, int chunkZ) {
+    }
+}
@@ -0,0 +1,341 @@
+package one.tranic.irs.chunk;
+
+import one.tranic.irs.PluginSchedulerBuilder;
+import org.bukkit.Bukkit;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of chunk snapshots, for async tasks that need to read the world.
+ * <p>
+ * Snapshots are taken on the thread owning the chunk (the main thread on Spigot/Paper) and can then be read from any
+ * thread. A snapshot is served until it is older than the maximum age, and the least recently used snapshots are
+ * evicted once the cache is full. Concurrent requests for the same chunk share a single snapshot.
+ * <p>
+ * The futures complete on the thread owning the chunk when a new snapshot is taken, and on the calling thread for
+ * cached ones. Callbacks attached with {@code thenAccept} and the like run on that thread, which may be a tick thread:
+ * expensive work belongs in the {@code Async} variants with an executor, such as a {@link one.tranic.irs.executor.Bulkhead}.
+ * <p>
+ * Snapshots that are not taken within the load timeout, for example because Folia dropped the task of a world
+ * being unloaded, fail with a {@link java.util.concurrent.TimeoutException} so that later requests take a new one.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * ChunkSnapshotCache cache = ChunkSnapshotCache.builder()
+ *     .maximumSize(1024)
+ *     .maxAgeTicks(100L)
+ *     .build(plugin);
+ *
+ * // The snapshot may be delivered on a tick thread, rendering is moved off it.
+ * cache.get(world, chunkX, chunkZ).thenAcceptAsync(snapshot -> render(snapshot), SharedExecutor.getBulkhead());
+ * }
+ * </pre>
+ */
+public final class ChunkSnapshotCache implements Listener {
+    private final Plugin plugin;
+    private final int maximumSize;
+    private final long maxAgeNanos;
+    private final boolean loadChunks;
+    private final long loadTimeoutMillis;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<ChunkSnapshot>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ChunkSnapshotCache(Plugin plugin, int maximumSize, long maxAgeNanos, boolean loadChunks, long loadTimeoutMillis) {
+        this.plugin = plugin;
+        this.maximumSize = maximumSize;
+        this.maxAgeNanos = maxAgeNanos;
+        this.loadChunks = loadChunks;
+        this.loadTimeoutMillis = loadTimeoutMillis;
+    }
+
+    /**
+     * Creates a new builder for a chunk snapshot cache.
+     *
+     * @return a new {@code Builder} instance
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the snapshot of the chunk containing the location.
+     *
+     * @param location the location
+     * @return a future completing with the snapshot, see {@link #get(World, int, int)}
+     */
+    public @NotNull CompletableFuture<ChunkSnapshot> get(@NotNull Location location) {
+        return get(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    /**
+     * Returns the snapshot of the chunk, taking a new one on the thread owning the chunk
+     * if there is none younger than the maximum age.
+     * <p>
+     * The future completes on the thread owning the chunk, or right away on the calling thread for cached snapshots,
+     * so expensive callbacks should be attached with an executor.
+     *
+     * @param world  the world
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     * @return a future completing with the snapshot, or with null if the chunk is not loaded and the cache
+     * does not load chunks, or if the world was unloaded. It fails with a {@link java.util.concurrent.TimeoutException}
+     * if the snapshot was not taken within the load timeout
+     */
+    public @NotNull CompletableFuture<ChunkSnapshot> get(@NotNull World world, int chunkX, int chunkZ) {
+        Key key = new Key(world.getUID(), chunkX, chunkZ);
+        ChunkSnapshot snapshot = getIfPresent(key);
+        if (snapshot != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(snapshot);
+        }
+
+        CompletableFuture<ChunkSnapshot> created = new CompletableFuture<>();
+        CompletableFuture<ChunkSnapshot> future = loading.putIfAbsent(key, created);
+        if (future != null) {
+            coalesced.increment();
+            return future;
+        }
+
+        misses.increment();
+        created.whenComplete((result, e) -> {
+            if (result != null) put(key, result);
+            loading.remove(key, created);
+        });
+        created.orTimeout(loadTimeoutMillis, TimeUnit.MILLISECONDS);
+        load(world, chunkX, chunkZ, created);
+        return created;
+    }
+
+    /**
+     * Returns the cached snapshot of the chunk, without taking a new one.
+     *
+     * @param world  the world
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     * @return the snapshot, or null if there is none younger than the maximum age
+     */
+    public @Nullable ChunkSnapshot getIfPresent(@NotNull World world, int chunkX, int chunkZ) {
+        return getIfPresent(new Key(world.getUID(), chunkX, chunkZ));
+    }
+
+    /**
+     * Removes the snapshot of the chunk, usually after changing it.
+     *
+     * @param world  the world
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     */
+    public void invalidate(@NotNull World world, int chunkX, int chunkZ) {
+        synchronized (entries) {
+            entries.remove(new Key(world.getUID(), chunkX, chunkZ));
+        }
+    }
+
+    /**
+     * Removes the snapshots of all chunks of the world.
+     *
+     * @param world the world
+     */
+    public void invalidate(@NotNull World world) {
+        UUID uid = world.getUID();
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.world().equals(uid));
+        }
+    }
+
+    /**
+     * Removes all snapshots.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached snapshots, including expired ones that have not been evicted yet.
+     *
+     * @return the number of snapshots
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the counters of this cache.
+     *
+     * @return the statistics of this cache
+     */
+    public @NotNull Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), size());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        // Folia drops the region tasks of the world without retiring them, the pending snapshots would never complete.
+        UUID uid = event.getWorld().getUID();
+        loading.forEach((key, future) -> {
+            if (key.world().equals(uid)) future.complete(null);
+        });
+        invalidate(event.getWorld());
+    }
+
+    private @Nullable ChunkSnapshot getIfPresent(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) return null;
+            if (System.nanoTime() - entry.createdAt() > maxAgeNanos) {
+                entries.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.snapshot();
+        }
+    }
+
+    private void put(Key key, ChunkSnapshot snapshot) {
+        synchronized (entries) {
+            entries.put(key, new Entry(snapshot, System.nanoTime()));
+            while (entries.size() > maximumSize) {
+                Iterator<Key> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void load(World world, int chunkX, int chunkZ, CompletableFuture<ChunkSnapshot> future) {
+        try {
+            PluginSchedulerBuilder.builder(plugin)
+                    .sync(new Location(world, (chunkX << 4) + 8, 0, (chunkZ << 4) + 8))
+                    .inlineIfOwned()
+                    .retired(() -> future.complete(null))
+                    .task(() -> {
+                        try {
+                            if (!loadChunks && !world.isChunkLoaded(chunkX, chunkZ)) future.complete(null);
+                            else future.complete(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot());
+                        } catch (Throwable e) {
+                            future.completeExceptionally(e);
+                        }
+                    })
+                    .run();
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Counters of a {@link ChunkSnapshotCache}.
+     *
+     * @param hits      the number of requests served from the cache
+     * @param misses    the number of snapshots taken
+     * @param coalesced the number of requests that waited for a snapshot requested by another one
+     * @param evictions the number of snapshots evicted because they expired or the cache was full
+     * @param size      the number of cached snapshots
+     */
+    public record Stats(long hits, long misses, long coalesced, long evictions, int size) {
+    }
+
+    private record Key(UUID world, int chunkX, int chunkZ) {
+    }
+
+    private record Entry(ChunkSnapshot snapshot, long createdAt) {
+    }
+
+    public static final class Builder {
+        private int maximumSize = 1024;
+        private long maxAgeTicks = 20L;
+        private boolean loadChunks;
+        private long loadTimeoutTicks = 200L;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of snapshots, the least recently used ones are evicted first.
+         *
+         * @param maximumSize the maximum number of snapshots
+         * @return this builder instance for method chaining
+         */
+        public Builder maximumSize(int maximumSize) {
+            if (maximumSize < 1) throw new IllegalArgumentException("maximumSize must be at least 1");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets how long a snapshot is served after it was taken.
+         *
+         * @param maxAgeTicks the maximum age in ticks (50 milliseconds)
+         * @return this builder instance for method chaining
+         */
+        public Builder maxAgeTicks(long maxAgeTicks) {
+            if (maxAgeTicks < 0) throw new IllegalArgumentException("maxAgeTicks must not be negative");
+            this.maxAgeTicks = maxAgeTicks;
+            return this;
+        }
+
+        /**
+         * Sets whether chunks that are not loaded are loaded to take their snapshot, disabled by default.
+         *
+         * @param loadChunks true to load chunks
+         * @return this builder instance for method chaining
+         */
+        public Builder loadChunks(boolean loadChunks) {
+            this.loadChunks = loadChunks;
+            return this;
+        }
+
+        /**
+         * Sets how long a snapshot may take before its requests fail, 200 ticks by default.
+         *
+         * @param loadTimeoutTicks the timeout in ticks (50 milliseconds)
+         * @return this builder instance for method chaining
+         */
+        public Builder loadTimeoutTicks(long loadTimeoutTicks) {
+            if (loadTimeoutTicks < 1) throw new IllegalArgumentException("loadTimeoutTicks must be at least 1");
+            this.loadTimeoutTicks = loadTimeoutTicks;
+            return this;
+        }
+
+        /**
+         * Creates the cache and registers it to be notified when worlds are unloaded.
+         *
+         * @param plugin the plugin scheduling the snapshots
+         * @return the cache
+         */
+        public @NotNull ChunkSnapshotCache build(@NotNull Plugin plugin) {
+            ChunkSnapshotCache cache = new ChunkSnapshotCache(plugin, maximumSize,
+                    TimeUnit.MILLISECONDS.toNanos(maxAgeTicks * 50), loadChunks, loadTimeoutTicks * 50);
+            Bukkit.getPluginManager().registerEvents(cache, plugin);
+            return cache;
+        }
+    }
+}
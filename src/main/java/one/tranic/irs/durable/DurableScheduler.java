@@ -0,0 +1,193 @@
+package one.tranic.irs.durable;
+
+import one.tranic.irs.PluginSchedulerBuilder;
+import one.tranic.irs.task.TaskImpl;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Schedules long-delay tasks that survive restarts.
+ * <p>
+ * Tasks are described by a type key and a payload instead of a closure. Their descriptors are stored
+ * in a {@link TaskJournal}, and {@link #replay()} hands the pending ones back to {@link PluginSchedulerBuilder}
+ * after a restart. Tasks that became due while the server was offline run one tick after the replay.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * DurableScheduler scheduler = DurableScheduler.open(plugin, plugin.getDataFolder().toPath().resolve("tasks.journal"));
+ * scheduler.register("unban", payload -> unban(UUID.fromString(new String(payload))));
+ * scheduler.replay();
+ *
+ * scheduler.schedule("unban", uuid.toString().getBytes(), 20L * 60 * 60, DurableScope.global());
+ * }
+ * </pre>
+ */
+public class DurableScheduler {
+    private static final long TICK_MILLIS = 50L;
+    private static final long MAINTENANCE_PERIOD_TICKS = 100L;
+
+    private final Plugin plugin;
+    private final TaskJournal journal;
+    private final Map<String, Consumer<byte[]>> handlers = new ConcurrentHashMap<>();
+    private final Map<Long, TaskImpl<Plugin>> scheduled = new ConcurrentHashMap<>();
+    private final @Nullable TaskImpl<Plugin> maintenance;
+
+    private DurableScheduler(Plugin plugin, TaskJournal journal) {
+        this.plugin = plugin;
+        this.journal = journal;
+        this.maintenance = PluginSchedulerBuilder.builder(plugin)
+                .async()
+                .task(this::maintain)
+                .delayTicks(MAINTENANCE_PERIOD_TICKS)
+                .period(MAINTENANCE_PERIOD_TICKS)
+                .run();
+    }
+
+    /**
+     * Opens the journal at the given path and starts flushing it periodically.
+     *
+     * @param plugin the plugin owning the tasks
+     * @param path   the journal file
+     * @return the durable scheduler
+     * @throws IOException if the journal cannot be opened
+     */
+    public static @NotNull DurableScheduler open(@NotNull Plugin plugin, @NotNull Path path) throws IOException {
+        return new DurableScheduler(plugin, TaskJournal.open(path));
+    }
+
+    /**
+     * Registers the handler for a type key. Handlers have to be registered before {@link #replay()}.
+     *
+     * @param typeKey the type key
+     * @param handler the handler receiving the payload, on the thread of the task's scope
+     * @return this scheduler instance for method chaining
+     */
+    public DurableScheduler register(@NotNull String typeKey, @NotNull Consumer<byte[]> handler) {
+        handlers.put(typeKey, handler);
+        return this;
+    }
+
+    /**
+     * Stores the task in the journal and schedules it.
+     * <p>
+     * This only writes to memory-mapped memory and can be called from tick threads.
+     *
+     * @param typeKey    the type key of a registered handler
+     * @param payload    the data passed to the handler
+     * @param delayTicks the number of ticks until the task is due
+     * @param scope      where the task is executed
+     * @return the journal id of the task, to be used with {@link #cancel(long)}
+     * @throws IllegalArgumentException if no handler is registered for the type key
+     */
+    public long schedule(@NotNull String typeKey, @NotNull byte[] payload, long delayTicks, @NotNull DurableScope scope) {
+        if (!handlers.containsKey(typeKey))
+            throw new IllegalArgumentException("No handler registered for " + typeKey);
+        DurableTask task = journal.append(typeKey, payload, System.currentTimeMillis() + delayTicks * TICK_MILLIS, scope);
+        dispatch(task);
+        return task.id();
+    }
+
+    /**
+     * Cancels the task and removes it from the journal.
+     *
+     * @param id the journal id of the task
+     * @return true if the task was still pending
+     */
+    public boolean cancel(long id) {
+        TaskImpl<Plugin> task = scheduled.remove(id);
+        if (task != null) task.cancel();
+        return journal.complete(id);
+    }
+
+    /**
+     * Schedules all pending tasks of the journal.
+     *
+     * @return the number of scheduled tasks
+     */
+    public int replay() {
+        int count = 0;
+        for (DurableTask task : journal.pending()) {
+            if (scheduled.containsKey(task.id())) continue;
+            if (dispatch(task)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Stops the scheduled tasks and closes the journal. Pending tasks stay in the journal.
+     */
+    public void close() {
+        if (maintenance != null) maintenance.cancel();
+        for (TaskImpl<Plugin> task : scheduled.values()) task.cancel();
+        scheduled.clear();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close the IRS task journal", e);
+        }
+    }
+
+    private boolean dispatch(DurableTask task) {
+        long delayTicks = Math.max(1L, (task.dueAt() - System.currentTimeMillis() + TICK_MILLIS - 1) / TICK_MILLIS);
+        PluginSchedulerBuilder builder = PluginSchedulerBuilder.builder(plugin)
+                .task(() -> execute(task))
+                .delayTicks(delayTicks);
+
+        DurableScope scope = task.scope();
+        switch (scope.kind()) {
+            case GLOBAL -> builder.sync();
+            case ASYNC -> builder.async();
+            case REGION -> {
+                World world = Bukkit.getWorld(scope.world());
+                if (world == null) {
+                    plugin.getLogger().warning("World " + scope.world() + " of durable task " + task.id() + " is not loaded");
+                    return false;
+                }
+                builder.sync(new Location(world, scope.x(), 0, scope.z()));
+            }
+        }
+
+        TaskImpl<Plugin> handle = builder.run();
+        if (handle != null) scheduled.put(task.id(), handle);
+        return true;
+    }
+
+    private void execute(DurableTask task) {
+        scheduled.remove(task.id());
+        if (!journal.isPending(task.id())) return;
+
+        Consumer<byte[]> handler = handlers.get(task.typeKey());
+        if (handler == null) {
+            plugin.getLogger().warning("No handler registered for durable task " + task.typeKey() + ", keeping it");
+            return;
+        }
+        try {
+            handler.accept(task.payload());
+        } catch (Throwable e) {
+            plugin.getLogger().log(Level.WARNING, "Durable task " + task.typeKey() + " generated an exception", e);
+        } finally {
+            journal.complete(task.id());
+        }
+    }
+
+    private void maintain() {
+        try {
+            journal.flush();
+            journal.compactIfNeeded();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to maintain the IRS task journal", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package one.tranic.irs.durable;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Where a durable task is executed once it is due.
+ * <p>
+ * Region scopes keep the world name and block coordinates instead of a {@link Location},
+ * so the descriptor survives restarts and does not keep the world loaded.
+ *
+ * @param kind  the scheduler to use
+ * @param world the world name, empty unless {@code kind} is {@link Kind#REGION}
+ * @param x     the block x coordinate of the region
+ * @param z     the block z coordinate of the region
+ */
+public record DurableScope(@NotNull Kind kind, @NotNull String world, int x, int z) {
+    private static final DurableScope GLOBAL = new DurableScope(Kind.GLOBAL, "", 0, 0);
+    private static final DurableScope ASYNC = new DurableScope(Kind.ASYNC, "", 0, 0);
+
+    /**
+     * Runs on the main thread, or the global region on Folia.
+     *
+     * @return the global scope
+     */
+    public static @NotNull DurableScope global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Runs asynchronously.
+     *
+     * @return the async scope
+     */
+    public static @NotNull DurableScope async() {
+        return ASYNC;
+    }
+
+    /**
+     * Runs on the region owning the given location.
+     *
+     * @param location the location
+     * @return the region scope
+     */
+    public static @NotNull DurableScope region(@NotNull Location location) {
+        return new DurableScope(Kind.REGION, location.getWorld().getName(), location.getBlockX(), location.getBlockZ());
+    }
+
+    public enum Kind {
+        GLOBAL,
+        ASYNC,
+        REGION
+    }
+}
@@ -0,0 +1,16 @@
+package one.tranic.irs.durable;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Descriptor of a task stored in the {@link TaskJournal}.
+ *
+ * @param id      the journal id of the task
+ * @param typeKey the key of the handler registered in {@link DurableScheduler}
+ * @param payload the data passed to the handler
+ * @param dueAt   the wall-clock time the task is due, in epoch milliseconds
+ * @param scope   where the task is executed
+ */
+public record DurableTask(long id, @NotNull String typeKey, @NotNull byte[] payload, long dueAt,
+                          @NotNull DurableScope scope) {
+}
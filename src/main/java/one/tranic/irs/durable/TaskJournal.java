@@ -0,0 +1,351 @@
+package one.tranic.irs.durable;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of {@link DurableTask} descriptors, backed by a memory-mapped file.
+ * <p>
+ * Appending only copies the record into the mapped region, so it is cheap enough for tick threads.
+ * Nothing is written to disk synchronously: the operating system writes the pages back on its own,
+ * and {@link #flush()} can be called periodically from an async task to force them out.
+ * <p>
+ * Every record is {@code [int length][int crc32][body]}. A zero length marks the end of the journal,
+ * and a record whose checksum does not match (for example, torn by a crash) ends the replay as well.
+ * Completed tasks only append a small marker, {@link #compact()} rewrites the file with the pending tasks.
+ */
+public final class TaskJournal implements Closeable {
+    private static final int MAGIC = 0x4952534A; // IRSJ
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int COMPACT_THRESHOLD = 1024;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private static final byte ADD = 1;
+    private static final byte DONE = 2;
+
+    private final Path path;
+    private final Object lock = new Object();
+    private final Object compactLock = new Object();
+    private final Map<Long, DurableTask> pending = new LinkedHashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextId = 1;
+    private int deadRecords;
+
+    private TaskJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Opens the journal at the given path, creating it if necessary, and reads the pending tasks.
+     *
+     * @param path the journal file
+     * @return the opened journal
+     * @throws IOException if the file cannot be opened or is not a journal
+     */
+    public static @NotNull TaskJournal open(@NotNull Path path) throws IOException {
+        TaskJournal journal = new TaskJournal(path);
+        journal.load();
+        return journal;
+    }
+
+    private void load() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+
+        if (size < HEADER_SIZE) {
+            buffer.putInt(MAGIC).putInt(VERSION);
+            return;
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            throw new IOException("Not an IRS task journal: " + path);
+
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() || crc != checksum(buffer, buffer.position(), length)) {
+                buffer.position(start);
+                if (length != 0) clearTail();
+                break;
+            }
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            readRecord(body);
+        }
+    }
+
+    private void readRecord(ByteBuffer body) {
+        byte type = body.get();
+        if (type == ADD) {
+            DurableTask task = decode(body);
+            pending.put(task.id(), task);
+            nextId = Math.max(nextId, task.id() + 1);
+        } else if (type == DONE) {
+            if (pending.remove(body.getLong()) != null) deadRecords += 2;
+        }
+    }
+
+    private void clearTail() {
+        int position = buffer.position();
+        while (buffer.hasRemaining()) buffer.put((byte) 0);
+        buffer.position(position);
+    }
+
+    /**
+     * Appends a new task to the journal.
+     *
+     * @param typeKey the key of the handler
+     * @param payload the data passed to the handler
+     * @param dueAt   the wall-clock time the task is due, in epoch milliseconds
+     * @param scope   where the task is executed
+     * @return the stored descriptor, with its journal id
+     */
+    public @NotNull DurableTask append(@NotNull String typeKey, @NotNull byte[] payload, long dueAt, @NotNull DurableScope scope) {
+        if (typeKey.length() > MAX_STRING_LENGTH / 3 && typeKey.getBytes(StandardCharsets.UTF_8).length > MAX_STRING_LENGTH)
+            throw new IllegalArgumentException("Type key is too long: " + typeKey);
+        synchronized (lock) {
+            DurableTask task = new DurableTask(nextId++, typeKey, payload, dueAt, scope);
+            write(encode(task));
+            pending.put(task.id(), task);
+            return task;
+        }
+    }
+
+    /**
+     * Marks the task as completed or cancelled, it will not be replayed anymore.
+     *
+     * @param id the journal id of the task
+     * @return true if the task was pending
+     */
+    public boolean complete(long id) {
+        synchronized (lock) {
+            if (pending.remove(id) == null) return false;
+            write(ByteBuffer.allocate(9).put(DONE).putLong(id).flip());
+            deadRecords += 2;
+            return true;
+        }
+    }
+
+    /**
+     * Returns whether the task is still pending.
+     *
+     * @param id the journal id of the task
+     * @return true if the task has neither completed nor been cancelled
+     */
+    public boolean isPending(long id) {
+        synchronized (lock) {
+            return pending.containsKey(id);
+        }
+    }
+
+    /**
+     * Returns a snapshot of all pending tasks, in the order they were added.
+     *
+     * @return the pending tasks
+     */
+    public @NotNull List<DurableTask> pending() {
+        synchronized (lock) {
+            return new ArrayList<>(pending.values());
+        }
+    }
+
+    /**
+     * Forces the written records out to the disk.
+     * <p>
+     * This may block on I/O and should only be called from async tasks.
+     */
+    public void flush() {
+        MappedByteBuffer current;
+        synchronized (lock) {
+            current = buffer;
+        }
+        current.force();
+    }
+
+    /**
+     * Compacts the journal if enough completed tasks have piled up.
+     *
+     * @throws IOException if the journal cannot be rewritten
+     */
+    public void compactIfNeeded() throws IOException {
+        boolean needed;
+        synchronized (lock) {
+            needed = deadRecords >= COMPACT_THRESHOLD && deadRecords > pending.size();
+        }
+        if (needed) compact();
+    }
+
+    /**
+     * Rewrites the journal so that it only contains the pending tasks.
+     * <p>
+     * The new file is written and forced to the disk without holding the journal, tasks can still be appended and
+     * completed meanwhile. The journal is only held to copy the records written in the meantime and swap the files.
+     * This blocks on I/O and should only be called from async tasks.
+     *
+     * @throws IOException if the journal cannot be rewritten
+     */
+    public void compact() throws IOException {
+        synchronized (compactLock) {
+            List<ByteBuffer> records;
+            int size = HEADER_SIZE;
+            int mark;
+            int deadAtMark;
+            synchronized (lock) {
+                records = new ArrayList<>(pending.size());
+                for (DurableTask task : pending.values()) {
+                    ByteBuffer record = encode(task);
+                    records.add(record);
+                    size += RECORD_HEADER_SIZE + record.remaining();
+                }
+                mark = buffer.position();
+                deadAtMark = deadRecords;
+            }
+
+            Path temp = path.resolveSibling(path.getFileName() + ".compact");
+            FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                MappedByteBuffer compacted = out.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, size * 2L));
+                compacted.putInt(MAGIC).putInt(VERSION);
+                for (ByteBuffer record : records) put(compacted, record);
+                compacted.force();
+
+                synchronized (lock) {
+                    if (!channel.isOpen()) throw new IOException("IRS task journal is closed: " + path);
+
+                    // Records written since the snapshot are complete and checksummed, they are copied as they are.
+                    ByteBuffer tail = buffer.slice(mark, buffer.position() - mark);
+                    if (compacted.remaining() < tail.remaining() + RECORD_HEADER_SIZE) {
+                        int position = compacted.position();
+                        compacted = out.map(FileChannel.MapMode.READ_WRITE, 0, (long) position + tail.remaining() * 2L + INITIAL_CAPACITY);
+                        compacted.position(position);
+                    }
+                    compacted.put(tail);
+
+                    // The old mapping is dropped before the file is replaced, some systems refuse to replace a mapped
+                    // file. The old channel stays open until the move succeeded, so the journal can be remapped if it fails.
+                    int position = buffer.position();
+                    long capacity = buffer.capacity();
+                    buffer = null;
+                    try {
+                        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                        buffer.position(position);
+                        throw e;
+                    }
+
+                    FileChannel previous = channel;
+                    channel = out;
+                    buffer = compacted;
+                    deadRecords -= deadAtMark;
+                    previous.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                if (channel != out) {
+                    out.close();
+                    Files.deleteIfExists(temp);
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    private void write(ByteBuffer record) {
+        int required = RECORD_HEADER_SIZE + record.remaining();
+        if (buffer.remaining() < required + RECORD_HEADER_SIZE) grow(required);
+        put(buffer, record);
+    }
+
+    private void grow(int required) {
+        int position = buffer.position();
+        long capacity = Math.max((long) buffer.capacity() * 2, (long) position + required * 2L);
+        if (capacity > Integer.MAX_VALUE) throw new IllegalStateException("IRS task journal is full: " + path);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow IRS task journal: " + path, e);
+        }
+        buffer.position(position);
+    }
+
+    private static void put(ByteBuffer target, ByteBuffer record) {
+        int length = record.remaining();
+        target.putInt(length);
+        target.putInt(checksum(record, record.position(), length));
+        target.put(record);
+    }
+
+    private static int checksum(ByteBuffer source, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(source.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static ByteBuffer encode(DurableTask task) {
+        byte[] typeKey = task.typeKey().getBytes(StandardCharsets.UTF_8);
+        byte[] world = task.scope().world().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = task.payload();
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + 8 + 1 + 2 + world.length + 4 + 4 + 2 + typeKey.length + 4 + payload.length);
+        body.put(ADD)
+                .putLong(task.id())
+                .putLong(task.dueAt())
+                .put((byte) task.scope().kind().ordinal())
+                .putShort((short) world.length).put(world)
+                .putInt(task.scope().x())
+                .putInt(task.scope().z())
+                .putShort((short) typeKey.length).put(typeKey)
+                .putInt(payload.length).put(payload);
+        return body.flip();
+    }
+
+    private static DurableTask decode(ByteBuffer body) {
+        long id = body.getLong();
+        long dueAt = body.getLong();
+        DurableScope.Kind kind = DurableScope.Kind.values()[body.get()];
+        String world = readString(body);
+        int x = body.getInt();
+        int z = body.getInt();
+        String typeKey = readString(body);
+        byte[] payload = new byte[body.getInt()];
+        body.get(payload);
+        return new DurableTask(id, typeKey, payload, dueAt, new DurableScope(kind, world, x, z));
+    }
+
+    private static String readString(ByteBuffer body) {
+        byte[] bytes = new byte[Short.toUnsignedInt(body.getShort())];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,365 @@
+package one.tranic.irs.executor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Executor with bounded concurrency and a bounded queue, used to isolate async work.
+ * <p>
+ * A slow dependency can only occupy the workers of its own bulkhead. Once they are all busy and the queue
+ * is full, the {@link RejectionPolicy} decides what happens with new tasks instead of letting them pile up
+ * in a shared pool. Bulkheads fail fast by default.
+ *
+ * <p>Usage example:
+ * <pre>
+ * {@code
+ * Bulkheads.register(plugin.getName(), "database", Bulkhead.builder()
+ *     .maxConcurrency(4)
+ *     .queueCapacity(256)
+ *     .rejectionPolicy(RejectionPolicy.FAIL_FAST));
+ *
+ * PluginSchedulerBuilder.builder(plugin)
+ *     .async("database")
+ *     .task(() -> saveAll())
+ *     .run();
+ * }
+ * </pre>
+ */
+public final class Bulkhead implements Executor {
+    private final String name;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final RejectionPolicy rejectionPolicy;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final Set<Schedule> schedules = ConcurrentHashMap.newKeySet();
+
+    private Bulkhead(String name, int maxConcurrency, int queueCapacity, RejectionPolicy rejectionPolicy) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "IRS " + name + " #" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> reject((Job) runnable));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Creates a new builder for a bulkhead.
+     *
+     * @return a new {@code Builder} instance
+     */
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+
+    public @NotNull String getName() {
+        return name;
+    }
+
+    public @NotNull RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * Submits the task.
+     *
+     * @param task the task to run
+     * @return a future completing with the task, it fails if the task threw an exception,
+     * was rejected or was dropped from the queue
+     */
+    public @NotNull CompletableFuture<Void> submit(@NotNull Runnable task) {
+        return submit(task, false);
+    }
+
+    /**
+     * Submits the task, rejections and failures are only visible in the {@link #metrics()}.
+     *
+     * @param task the task to run
+     */
+    @Override
+    public void execute(@NotNull Runnable task) {
+        submit(task);
+    }
+
+    /**
+     * Submits the task to this bulkhead after the delay, and then every period.
+     * <p>
+     * The timing is done by the timer thread of the {@link SharedExecutor}. Repeating executions never overlap:
+     * if the previous run is still queued or in progress when the period elapses, that execution is skipped.
+     * The timer thread never runs the task itself: when the bulkhead is saturated, the execution is skipped and
+     * counted in the {@link BulkheadMetrics#skipped() metrics}, whatever the {@link RejectionPolicy}.
+     * <p>
+     * The schedule is cancelled when the bulkhead is {@link #shutdown() shut down}.
+     *
+     * @param task   the task to run
+     * @param delay  the delay before the first execution
+     * @param period the period between executions, or a value less than or equal to 0 to run only once
+     * @param unit   the time unit of {@code delay} and {@code period}
+     * @return the future controlling the schedule
+     * @throws RejectedExecutionException if the bulkhead has been shut down
+     */
+    public @NotNull ScheduledFuture<?> schedule(@NotNull Runnable task, long delay, long period, @NotNull TimeUnit unit) {
+        return schedule(task, delay, period, unit, null);
+    }
+
+    /**
+     * Submits the task to this bulkhead after the delay, and then every period, see
+     * {@link #schedule(Runnable, long, long, TimeUnit)}.
+     *
+     * @param task       the task to run
+     * @param delay      the delay before the first execution
+     * @param period     the period between executions, or a value less than or equal to 0 to run only once
+     * @param unit       the time unit of {@code delay} and {@code period}
+     * @param onRejected called with the exception of every execution that was rejected, skipped or dropped,
+     *                   the task does not run for these executions
+     * @return the future controlling the schedule
+     * @throws RejectedExecutionException if the bulkhead has been shut down
+     */
+    public @NotNull ScheduledFuture<?> schedule(@NotNull Runnable task, long delay, long period, @NotNull TimeUnit unit,
+                                                @Nullable Consumer<? super RejectedExecutionException> onRejected) {
+        if (executor.isShutdown()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Bulkhead " + name + " has been shut down");
+        }
+
+        Schedule schedule = new Schedule();
+        schedules.add(schedule);
+        if (period <= 0) {
+            schedule.bind(SharedExecutor.timer().schedule(() -> {
+                schedules.remove(schedule);
+                notifyRejection(submit(task, true), onRejected);
+            }, delay, unit));
+        } else {
+            AtomicBoolean busy = new AtomicBoolean();
+            Runnable handoff = () -> {
+                if (!busy.compareAndSet(false, true)) return;
+                notifyRejection(submit(task, true), onRejected).whenComplete((ignored, e) -> busy.set(false));
+            };
+            schedule.bind(SharedExecutor.timer().scheduleAtFixedRate(handoff, delay, period, unit));
+        }
+        // shutdown() may have missed the schedule while it was being bound.
+        if (executor.isShutdown()) schedule.cancel(false);
+        return schedule;
+    }
+
+    /**
+     * Returns a snapshot of the state of this bulkhead.
+     *
+     * @return the metrics of this bulkhead
+     */
+    public @NotNull BulkheadMetrics metrics() {
+        return new BulkheadMetrics(name, executor.getActiveCount(), executor.getQueue().size(),
+                maxConcurrency, queueCapacity, completed.sum(), failed.sum(),
+                rejected.sum(), dropped.sum(), callerRuns.sum(), skipped.sum());
+    }
+
+    /**
+     * Stops accepting new tasks and cancels the {@link #schedule(Runnable, long, long, TimeUnit) scheduled} ones,
+     * queued tasks still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        for (Schedule schedule : schedules) schedule.cancel(false);
+    }
+
+    private CompletableFuture<Void> submit(Runnable task, boolean fromTimer) {
+        Job job = new Job(task, fromTimer);
+        executor.execute(job);
+        return job.future;
+    }
+
+    private static CompletableFuture<Void> notifyRejection(CompletableFuture<Void> future,
+                                                           @Nullable Consumer<? super RejectedExecutionException> onRejected) {
+        if (onRejected == null) return future;
+        return future.whenComplete((ignored, e) -> {
+            if (e instanceof RejectedExecutionException rejection) onRejected.accept(rejection);
+        });
+    }
+
+    private void reject(Job job) {
+        if (executor.isShutdown()) {
+            rejected.increment();
+            job.future.completeExceptionally(new RejectedExecutionException("Bulkhead " + name + " has been shut down"));
+            return;
+        }
+
+        switch (rejectionPolicy) {
+            case CALLER_RUNS -> {
+                if (job.fromTimer) {
+                    // The timer thread is shared by every bulkhead, it must never run a task itself.
+                    skipped.increment();
+                    job.future.completeExceptionally(new RejectedExecutionException("Bulkhead " + name + " is saturated, scheduled run skipped"));
+                    return;
+                }
+                callerRuns.increment();
+                job.run();
+            }
+            case DROP_OLDEST -> {
+                if (executor.getQueue().poll() instanceof Job oldest) {
+                    dropped.increment();
+                    oldest.future.completeExceptionally(new RejectedExecutionException("Dropped by bulkhead " + name));
+                }
+                executor.execute(job);
+            }
+            case FAIL_FAST -> {
+                if (job.fromTimer) skipped.increment();
+                else rejected.increment();
+                job.future.completeExceptionally(new RejectedExecutionException("Bulkhead " + name + " is saturated"));
+            }
+        }
+    }
+
+    private final class Job implements Runnable {
+        private final Runnable task;
+        private final boolean fromTimer;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Job(Runnable task, boolean fromTimer) {
+            this.task = task;
+            this.fromTimer = fromTimer;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) return;
+            try {
+                task.run();
+                completed.increment();
+                future.complete(null);
+            } catch (Throwable e) {
+                failed.increment();
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Future of a {@link #schedule(Runnable, long, long, TimeUnit) schedule}, forgotten by the bulkhead once cancelled.
+     */
+    private final class Schedule implements ScheduledFuture<Object> {
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
+
+        private void bind(ScheduledFuture<?> future) {
+            this.future = future;
+            if (cancelled) future.cancel(false);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            schedules.remove(this);
+            ScheduledFuture<?> f = future;
+            return f == null || f.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            ScheduledFuture<?> f = future;
+            return f != null ? f.isCancelled() : cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            ScheduledFuture<?> f = future;
+            return f != null ? f.isDone() : cancelled;
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return future.get();
+        }
+
+        @Override
+        public Object get(long timeout, @NotNull TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return future.get(timeout, unit);
+        }
+
+        @Override
+        public long getDelay(@NotNull TimeUnit unit) {
+            ScheduledFuture<?> f = future;
+            return f != null ? f.getDelay(unit) : 0L;
+        }
+
+        @Override
+        public int compareTo(@NotNull Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    public static final class Builder {
+        private int maxConcurrency = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        private int queueCapacity = 1024;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.FAIL_FAST;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of tasks running at the same time.
+         *
+         * @param maxConcurrency the number of worker threads
+         * @return this builder instance for method chaining
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be at least 1");
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tasks waiting for a worker.
+         *
+         * @param queueCapacity the capacity of the queue
+         * @return this builder instance for method chaining
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be at least 1");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Sets what happens with new tasks when the bulkhead is saturated, {@link RejectionPolicy#FAIL_FAST} by default.
+         *
+         * @param rejectionPolicy the rejection policy
+         * @return this builder instance for method chaining
+         */
+        public Builder rejectionPolicy(@NotNull RejectionPolicy rejectionPolicy) {
+            this.rejectionPolicy = rejectionPolicy;
+            return this;
+        }
+
+        /**
+         * Creates the bulkhead.
+         *
+         * @param name the name of the bulkhead, used for its threads and metrics
+         * @return the bulkhead
+         */
+        public @NotNull Bulkhead build(@NotNull String name) {
+            return new Bulkhead(name, maxConcurrency, queueCapacity, rejectionPolicy);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package one.tranic.irs.executor;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Snapshot of the state of a {@link Bulkhead}.
+ *
+ * @param name           the name of the bulkhead
+ * @param active         the number of tasks currently running
+ * @param queued         the number of tasks waiting for a worker
+ * @param maxConcurrency the maximum number of tasks running at the same time
+ * @param queueCapacity  the maximum number of waiting tasks
+ * @param completed      the number of tasks that completed normally
+ * @param failed         the number of tasks that threw an exception
+ * @param rejected       the number of tasks rejected by {@link RejectionPolicy#FAIL_FAST} or after a shutdown
+ * @param dropped        the number of queued tasks dropped by {@link RejectionPolicy#DROP_OLDEST}
+ * @param callerRuns     the number of tasks run by the caller through {@link RejectionPolicy#CALLER_RUNS}
+ * @param skipped        the number of scheduled executions skipped because the bulkhead was saturated
+ */
+public record BulkheadMetrics(@NotNull String name, int active, int queued, int maxConcurrency, int queueCapacity,
+                              long completed, long failed, long rejected, long dropped, long callerRuns, long skipped) {
+    /**
+     * Returns how full the bulkhead is, from 0 (idle) to 1 (all workers busy and queue full).
+     *
+     * @return the saturation of the bulkhead
+     */
+    public double saturation() {
+        return (double) (active + queued) / (maxConcurrency + queueCapacity);
+    }
+}
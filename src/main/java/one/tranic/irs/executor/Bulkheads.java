@@ -0,0 +1,81 @@
+package one.tranic.irs.executor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the {@link Bulkhead}s, by owner (usually the plugin name) and label.
+ * <p>
+ * A bulkhead registered with the {@link #DEFAULT_LABEL} is used for all async tasks of its owner
+ * that do not ask for a specific label.
+ */
+public final class Bulkheads {
+    /**
+     * The label of the bulkhead used by {@code PluginSchedulerBuilder.async()}.
+     */
+    public static final String DEFAULT_LABEL = "default";
+
+    private static final Map<Key, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    private Bulkheads() {
+    }
+
+    /**
+     * Creates and registers a bulkhead, replacing and shutting down the previous one with the same owner and label.
+     *
+     * @param owner   the owner of the bulkhead, usually the plugin name
+     * @param label   the label of the bulkhead
+     * @param builder the configuration of the bulkhead
+     * @return the registered bulkhead
+     */
+    public static @NotNull Bulkhead register(@NotNull String owner, @NotNull String label, @NotNull Bulkhead.Builder builder) {
+        Bulkhead bulkhead = builder.build(owner + "/" + label);
+        Bulkhead previous = bulkheads.put(new Key(owner, label), bulkhead);
+        if (previous != null) previous.shutdown();
+        return bulkhead;
+    }
+
+    /**
+     * Returns the bulkhead with the given owner and label.
+     *
+     * @param owner the owner of the bulkhead
+     * @param label the label of the bulkhead
+     * @return the bulkhead, or null if none is registered
+     */
+    public static @Nullable Bulkhead get(@NotNull String owner, @NotNull String label) {
+        return bulkheads.get(new Key(owner, label));
+    }
+
+    /**
+     * Shuts down and removes all bulkheads of the owner, usually called when the plugin is disabled.
+     *
+     * @param owner the owner of the bulkheads
+     */
+    public static void shutdown(@NotNull String owner) {
+        bulkheads.entrySet().removeIf(entry -> {
+            if (!entry.getKey().owner().equals(owner)) return false;
+            entry.getValue().shutdown();
+            return true;
+        });
+    }
+
+    /**
+     * Returns the metrics of all registered bulkheads and of the {@link SharedExecutor}.
+     *
+     * @return the metrics
+     */
+    public static @NotNull List<BulkheadMetrics> metrics() {
+        List<BulkheadMetrics> metrics = new ArrayList<>(bulkheads.size() + 1);
+        metrics.add(SharedExecutor.getBulkhead().metrics());
+        for (Bulkhead bulkhead : bulkheads.values()) metrics.add(bulkhead.metrics());
+        return metrics;
+    }
+
+    private record Key(String owner, String label) {
+    }
+}
@@ -0,0 +1,26 @@
+package one.tranic.irs.executor;
+
+/**
+ * What a {@link Bulkhead} does with a task when all workers are busy and its queue is full.
+ */
+public enum RejectionPolicy {
+    /**
+     * Runs the task on the thread that submitted it, which slows the producer down.
+     * <p>
+     * Only use it for bulkheads fed by threads that may block, a tick thread submitting to a saturated bulkhead
+     * would run the task itself. Executions scheduled with a delay are skipped instead, the timer thread never
+     * runs tasks.
+     */
+    CALLER_RUNS,
+
+    /**
+     * Drops the oldest queued task to make room, its future fails with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Does not run the task, its future fails with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    FAIL_FAST
+}
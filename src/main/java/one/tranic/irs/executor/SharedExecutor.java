@@ -0,0 +1,99 @@
+package one.tranic.irs.executor;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared, bounded executor for platforms that do not provide a usable scheduler of their own.
+ * <p>
+ * A single timer thread keeps track of delays and periods for this executor and for every {@link Bulkhead}.
+ * The tasks themselves run on a shared bulkhead with a fixed number of workers and a bounded queue,
+ * so the number of threads no longer grows with the number of plugins or repeating tasks.
+ * <p>
+ * The pool can be tuned with the {@code irs.executor.workers} and {@code irs.executor.queue} system properties.
+ * When the queue is full, new tasks are rejected and counted in the metrics of {@link #getBulkhead()}:
+ * the submitting thread, which may be the timer thread or a tick thread, never runs them itself.
+ */
+public final class SharedExecutor {
+    private static final int WORKERS = Integer.getInteger("irs.executor.workers",
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private static final int QUEUE = Integer.getInteger("irs.executor.queue", 1024);
+
+    private static final ScheduledThreadPoolExecutor timer;
+    private static final Bulkhead workers;
+
+    static {
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "IRS Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+
+        workers = Bulkhead.builder()
+                .maxConcurrency(WORKERS)
+                .queueCapacity(QUEUE)
+                .rejectionPolicy(RejectionPolicy.FAIL_FAST)
+                .build("Shared");
+    }
+
+    private SharedExecutor() {
+    }
+
+    static @NotNull ScheduledThreadPoolExecutor timer() {
+        return timer;
+    }
+
+    /**
+     * Returns the bulkhead running the tasks of this executor.
+     *
+     * @return the shared bulkhead
+     */
+    public static @NotNull Bulkhead getBulkhead() {
+        return workers;
+    }
+
+    /**
+     * Runs the task on the worker pool as soon as possible.
+     *
+     * @param task the task to run
+     */
+    public static void execute(@NotNull Runnable task) {
+        workers.execute(task);
+    }
+
+    /**
+     * Schedules the task on the worker pool.
+     *
+     * @param task   the task to run
+     * @param delay  the delay before the first execution
+     * @param period the period between executions, or a value less than or equal to 0 to run only once
+     * @param unit   the time unit of {@code delay} and {@code period}
+     * @return the future controlling the schedule
+     * @see Bulkhead#schedule(Runnable, long, long, TimeUnit)
+     */
+    public static @NotNull ScheduledFuture<?> schedule(@NotNull Runnable task, long delay, long period, @NotNull TimeUnit unit) {
+        return workers.schedule(task, delay, period, unit);
+    }
+
+    /**
+     * Returns the number of worker threads that are currently running tasks.
+     *
+     * @return the number of active workers
+     */
+    public static int getActiveCount() {
+        return workers.metrics().active();
+    }
+
+    /**
+     * Returns the number of tasks waiting for a free worker.
+     *
+     * @return the queue size
+     */
+    public static int getQueueSize() {
+        return workers.metrics().queued();
+    }
+}
@@ -0,0 +1,67 @@
+package one.tranic.irs.platform;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The scheduling path used by IRS on the current server.
+ * <ul>
+ *     <li>{@link #Bukkit}: Spigot/Paper, everything goes through the {@code BukkitScheduler}.</li>
+ *     <li>{@link #Folia}: region, entity, global region and async schedulers.</li>
+ *     <li>{@link #ShreddedPaper}: Folia schedulers for delayed work, but immediate region and entity tasks
+ *     are handed to the thread owning the chunk through ShreddedPaper's own API.</li>
+ * </ul>
+ */
+public enum Dispatcher {
+    Bukkit,
+    Folia,
+    ShreddedPaper;
+
+    private static Dispatcher dispatcher;
+
+    /**
+     * Returns the dispatcher for the current server, the result is cached after the first call.
+     *
+     * @return the dispatcher for the current server
+     */
+    public static @NotNull Dispatcher get() {
+        if (dispatcher == null) dispatcher = of(Platform.get(), ShreddedPaperHook.isAvailable());
+        return dispatcher;
+    }
+
+    /**
+     * Selects the dispatcher for the given platform.
+     * <p>
+     * ShreddedPaper only gets its own path if its API could be resolved, otherwise it is treated like Folia,
+     * whose scheduler API it implements.
+     *
+     * @param platform              the detected platform
+     * @param shreddedPaperHookable whether the ShreddedPaper API is available
+     * @return the dispatcher to use
+     */
+    public static @NotNull Dispatcher of(@NotNull Platform platform, boolean shreddedPaperHookable) {
+        return switch (platform) {
+            case Folia -> Folia;
+            case ShreddedPaper -> shreddedPaperHookable ? ShreddedPaper : Folia;
+            default -> Bukkit;
+        };
+    }
+
+    /**
+     * Returns whether the Folia scheduler API has to be used.
+     *
+     * @return true on Folia and ShreddedPaper
+     */
+    public boolean isMultithreading() {
+        return this != Bukkit;
+    }
+
+    /**
+     * Returns whether immediate region and entity tasks, and teleports, are handed to the thread owning the chunk
+     * through {@link ShreddedPaperHook} instead of the Folia schedulers.
+     *
+     * @return true on ShreddedPaper when its API is available
+     */
+    public boolean handsOffToChunkOwner() {
+        return this == ShreddedPaper;
+    }
+}
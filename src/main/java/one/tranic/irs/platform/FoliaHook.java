@@ -0,0 +1,93 @@
+package one.tranic.irs.platform;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Bridge to the tick counters of Folia ({@code io.papermc.paper.threadedregions}).
+ * <p>
+ * Folia ticks the global region and every region independently, each with its own tick counter, and delays given to
+ * its schedulers are counted in the ticks of the region running the task. These counters are not part of the API,
+ * so they are resolved reflectively and this class can be loaded on any platform.
+ */
+public final class FoliaHook {
+    private static final MethodHandle GLOBAL_TICK;
+    private static final MethodHandle CURRENT_REGION;
+    private static final MethodHandle REGION_DATA;
+    private static final MethodHandle REGION_TICK;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle globalTick;
+        try {
+            Class<?> server = Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            globalTick = lookup.findStatic(server, "getCurrentTick", MethodType.methodType(long.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            // Not Folia, or a version we do not know
+            globalTick = null;
+        }
+
+        MethodHandle currentRegion, regionData, regionTick;
+        try {
+            // The return types are generic, the methods are resolved by name to get their erasure.
+            Class<?> scheduler = Class.forName("io.papermc.paper.threadedregions.TickRegionScheduler");
+            Class<?> region = Class.forName("io.papermc.paper.threadedregions.ThreadedRegionizer$ThreadedRegion");
+            Class<?> data = Class.forName("io.papermc.paper.threadedregions.TickRegions$TickRegionData");
+            currentRegion = lookup.unreflect(scheduler.getMethod("getCurrentRegion"))
+                    .asType(MethodType.methodType(Object.class));
+            regionData = lookup.unreflect(region.getMethod("getData"))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            regionTick = lookup.unreflect(data.getMethod("getCurrentTick"))
+                    .asType(MethodType.methodType(long.class, Object.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            currentRegion = regionData = regionTick = null;
+        }
+        GLOBAL_TICK = globalTick;
+        CURRENT_REGION = currentRegion;
+        REGION_DATA = regionData;
+        REGION_TICK = regionTick;
+    }
+
+    private FoliaHook() {
+    }
+
+    /**
+     * Returns whether the tick counters of Folia were found.
+     *
+     * @return true if the methods of this class can be used
+     */
+    public static boolean isAvailable() {
+        return GLOBAL_TICK != null;
+    }
+
+    /**
+     * Returns the current tick of the global region.
+     *
+     * @return the tick of the global region, or -1 if the counters were not found
+     */
+    public static long globalTick() {
+        if (GLOBAL_TICK == null) return -1L;
+        try {
+            return (long) GLOBAL_TICK.invokeExact();
+        } catch (Throwable e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Returns the current tick of the region ticking on the current thread.
+     *
+     * @return the tick of the region, or -1 if the current thread is not ticking a region
+     */
+    public static long regionTick() {
+        if (CURRENT_REGION == null) return -1L;
+        try {
+            Object region = (Object) CURRENT_REGION.invokeExact();
+            if (region == null) return -1L;
+            return (long) REGION_TICK.invokeExact((Object) REGION_DATA.invokeExact(region));
+        } catch (Throwable e) {
+            return -1L;
+        }
+    }
+}
@@ -148,6 +148,17 @@ public enum Platform {
         return get() == Folia || get() == ShreddedPaper;
     }
 
+    /**
+     * Returns whether the current platform is a proxy.
+     * <p>
+     * On proxies, tasks have to be scheduled with {@link one.tranic.irs.ProxySchedulerBuilder}.
+     *
+     * @return true if running on Velocity or BungeeCord
+     */
+    public static boolean isProxy() {
+        return get() == Velocity || get() == BungeeCord;
+    }
+
     /**
      * Returns the lowercase string representation of the platform.
      *
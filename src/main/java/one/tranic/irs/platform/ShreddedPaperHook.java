@@ -0,0 +1,119 @@
+package one.tranic.irs.platform;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Bridge to the scheduling API of ShreddedPaper ({@code io.multipaper.shreddedpaper.ShreddedPaper}).
+ * <p>
+ * ShreddedPaper ticks chunks on several threads and assigns every chunk to the thread that currently owns it.
+ * Its {@code runSync} methods run the task on that thread, and {@code isSync} tells whether the current thread
+ * is the owner. The API is resolved reflectively, so this class can be loaded on any platform.
+ */
+public final class ShreddedPaperHook {
+    private static final MethodHandle RUN_SYNC_LOCATION;
+    private static final MethodHandle RUN_SYNC_ENTITY;
+    private static final MethodHandle IS_SYNC_LOCATION;
+    private static final MethodHandle IS_SYNC_ENTITY;
+
+    static {
+        MethodHandle runSyncLocation = null;
+        MethodHandle runSyncEntity = null;
+        MethodHandle isSyncLocation = null;
+        MethodHandle isSyncEntity = null;
+        try {
+            Class<?> api = Class.forName("io.multipaper.shreddedpaper.ShreddedPaper");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            runSyncLocation = lookup.findStatic(api, "runSync", MethodType.methodType(void.class, Location.class, Runnable.class));
+            runSyncEntity = lookup.findStatic(api, "runSync", MethodType.methodType(void.class, Entity.class, Runnable.class));
+            isSyncLocation = lookup.findStatic(api, "isSync", MethodType.methodType(boolean.class, Location.class));
+            isSyncEntity = lookup.findStatic(api, "isSync", MethodType.methodType(boolean.class, Entity.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            // Not ShreddedPaper, or an API version we do not know
+            runSyncLocation = runSyncEntity = isSyncLocation = isSyncEntity = null;
+        }
+        RUN_SYNC_LOCATION = runSyncLocation;
+        RUN_SYNC_ENTITY = runSyncEntity;
+        IS_SYNC_LOCATION = isSyncLocation;
+        IS_SYNC_ENTITY = isSyncEntity;
+    }
+
+    private ShreddedPaperHook() {
+    }
+
+    /**
+     * Returns whether the ShreddedPaper API was found.
+     *
+     * @return true if the methods of this class can be used
+     */
+    public static boolean isAvailable() {
+        return RUN_SYNC_LOCATION != null;
+    }
+
+    /**
+     * Runs the task on the thread owning the chunk at the given location.
+     *
+     * @param location the location
+     * @param task     the task to run
+     */
+    public static void runSync(@NotNull Location location, @NotNull Runnable task) {
+        try {
+            RUN_SYNC_LOCATION.invokeExact(location, task);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Runs the task on the thread owning the entity.
+     *
+     * @param entity the entity
+     * @param task   the task to run
+     */
+    public static void runSync(@NotNull Entity entity, @NotNull Runnable task) {
+        try {
+            RUN_SYNC_ENTITY.invokeExact(entity, task);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Returns whether the current thread owns the chunk at the given location.
+     *
+     * @param location the location
+     * @return true if the location can be accessed from the current thread
+     */
+    public static boolean isSync(@NotNull Location location) {
+        try {
+            return (boolean) IS_SYNC_LOCATION.invokeExact(location);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * Returns whether the current thread owns the entity.
+     *
+     * @param entity the entity
+     * @return true if the entity can be accessed from the current thread
+     */
+    public static boolean isSync(@NotNull Entity entity) {
+        try {
+            return (boolean) IS_SYNC_ENTITY.invokeExact(entity);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException r) return r;
+        if (e instanceof Error err) throw err;
+        return new IllegalStateException(e);
+    }
+}
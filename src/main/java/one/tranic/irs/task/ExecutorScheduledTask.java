@@ -0,0 +1,82 @@
+package one.tranic.irs.task;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Task handle for tasks running on an IRS executor, such as the {@link one.tranic.irs.executor.SharedExecutor}
+ * used on proxies or a {@link one.tranic.irs.executor.Bulkhead}.
+ *
+ * @param <P> the plugin type
+ */
+public class ExecutorScheduledTask<P> implements TaskImpl<P> {
+    private final P owner;
+    private final boolean isRepeating;
+    private final Consumer<? super ExecutorScheduledTask<P>> onCancel;
+    private volatile Future<?> future;
+    private volatile boolean cancelled;
+
+    public ExecutorScheduledTask(P owner, boolean isRepeating) {
+        this(owner, isRepeating, null);
+    }
+
+    public ExecutorScheduledTask(P owner, boolean isRepeating, Consumer<? super ExecutorScheduledTask<P>> onCancel) {
+        this.owner = owner;
+        this.isRepeating = isRepeating;
+        this.onCancel = onCancel;
+    }
+
+    /**
+     * Attaches the scheduled future to this handle, cancelling it right away if the task
+     * was cancelled before it got scheduled.
+     *
+     * @param future the future returned by the executor
+     */
+    public void bind(Future<?> future) {
+        this.future = future;
+        if (cancelled) future.cancel(false);
+    }
+
+    /**
+     * Returns the future returned by the executor.
+     * <p>
+     * For tasks submitted to a {@link one.tranic.irs.executor.Bulkhead} without delay, this is the future
+     * completing with the task, which fails if the bulkhead rejected or dropped it.
+     *
+     * @return the future, or null if the task has not been scheduled yet
+     */
+    public @Nullable Future<?> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void cancel() {
+        if (cancelled) return;
+        cancelled = true;
+        Future<?> f = future;
+        if (f != null) f.cancel(false);
+        if (onCancel != null) onCancel.accept(this);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public P getOwner() {
+        return owner;
+    }
+
+    @Override
+    public boolean isRepeatingTask() {
+        return isRepeating;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package one.tranic.irs.task;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Task handle for tasks that ran inline because the caller already owned their target,
+ * see {@code PluginSchedulerBuilder.inlineIfOwned()}.
+ * <p>
+ * The task has already completed when the handle is returned, cancelling it only changes {@link #isCancelled()}.
+ */
+public class InlineTask implements TaskImpl<Plugin> {
+    private final Plugin owner;
+    private volatile boolean cancelled;
+
+    public InlineTask(Plugin owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public Plugin getOwner() {
+        return owner;
+    }
+
+    @Override
+    public boolean isRepeatingTask() {
+        return false;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+}
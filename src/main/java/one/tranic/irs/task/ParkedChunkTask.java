@@ -0,0 +1,106 @@
+package one.tranic.irs.task;
+
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Task handle for tasks waiting for a chunk to load, see {@link one.tranic.irs.chunk.ChunkLoadIndex}.
+ * <p>
+ * The task runs at most once: when the chunk loads, or never if it is cancelled, times out or its world is unloaded
+ * first.
+ */
+public class ParkedChunkTask implements TaskImpl<Plugin> {
+    private static final int PARKED = 0;
+    private static final int FIRED = 1;
+    private static final int CANCELLED = 2;
+
+    private final Plugin owner;
+    private final Consumer<? super TaskImpl<Plugin>> task;
+    private final Consumer<? super ParkedChunkTask> onCancel;
+    private final Runnable retired;
+    private final AtomicInteger state = new AtomicInteger(PARKED);
+    private volatile TaskImpl<Plugin> timeout;
+
+    public ParkedChunkTask(Plugin owner, Consumer<? super TaskImpl<Plugin>> task, Consumer<? super ParkedChunkTask> onCancel) {
+        this(owner, task, onCancel, null);
+    }
+
+    public ParkedChunkTask(Plugin owner, Consumer<? super TaskImpl<Plugin>> task, Consumer<? super ParkedChunkTask> onCancel,
+                           @Nullable Runnable retired) {
+        this.owner = owner;
+        this.task = task;
+        this.onCancel = onCancel;
+        this.retired = retired;
+    }
+
+    /**
+     * Attaches the task expiring this one.
+     *
+     * @param timeout the timeout task, cancelled once this task fires
+     */
+    public void bindTimeout(@Nullable TaskImpl<Plugin> timeout) {
+        this.timeout = timeout;
+        if (timeout != null && state.get() != PARKED) timeout.cancel();
+    }
+
+    /**
+     * Runs the task if it is still parked, must be called on the thread owning the chunk.
+     */
+    public void fire() {
+        if (!state.compareAndSet(PARKED, FIRED)) return;
+        TaskImpl<Plugin> t = timeout;
+        if (t != null) t.cancel();
+        task.accept(this);
+    }
+
+    /**
+     * Cancels the task if it is still parked.
+     *
+     * @return true if the task was parked
+     */
+    public boolean expire() {
+        if (!state.compareAndSet(PARKED, CANCELLED)) return false;
+        onCancel.accept(this);
+        return true;
+    }
+
+    /**
+     * Cancels the task if it is still parked because its chunk can no longer load, and runs the retired callback.
+     */
+    public void retire() {
+        if (!expire()) return;
+        TaskImpl<Plugin> t = timeout;
+        if (t != null) t.cancel();
+        if (retired != null) retired.run();
+    }
+
+    @Override
+    public void cancel() {
+        if (!expire()) return;
+        TaskImpl<Plugin> t = timeout;
+        if (t != null) t.cancel();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    @Override
+    public Plugin getOwner() {
+        return owner;
+    }
+
+    @Override
+    public boolean isRepeatingTask() {
+        return false;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+}
@@ -0,0 +1,274 @@
+package one.tranic.irs.task;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Spreads repeating tasks with the same period over the ticks of that period, so they do not all run on the same tick.
+ * <p>
+ * Each task is given a phase, the tick of the period it runs on, within its scope: the global region
+ * (the main thread on Spigot/Paper), a region, or an async executor. The phase is reached by adding an offset,
+ * smaller than the period, to the initial delay of the task. Phases are counted on the tick counter the scope is
+ * scheduled with: the server tick, or the tick of the region on Folia. Async executors have no tick, their phases
+ * are counted on a {@link #wallClockTick() clock of 50 milliseconds}.
+ * <p>
+ * Cancelled tasks are forgotten, and the resulting load per tick can be checked with {@link #distribution(String, int)}
+ * or {@link #report()}.
+ */
+public final class PhaseSpreader {
+    private static final long TICK_NANOS = 50_000_000L;
+    private static final int MAX_WINDOW = 72_000;
+    private static final double GOLDEN_RATIO = 0.6180339887498949;
+
+    private static final List<Entry> entries = new ArrayList<>();
+
+    private PhaseSpreader() {
+    }
+
+    /**
+     * Picks the phase of a new repeating task and reserves it until the task is cancelled.
+     *
+     * @param owner       the owner of the task, usually the plugin name
+     * @param scope       the scope of the task
+     * @param currentTick the current tick of the scope, the delay of the task is counted from it
+     * @param delayTicks  the initial delay requested for the task
+     * @param periodTicks the period of the task
+     * @param policy      how the phase is picked
+     * @return the reserved slot, or null if the policy is {@link Policy#NONE}
+     */
+    public static @Nullable Slot reserve(@NotNull String owner, @NotNull String scope, long currentTick,
+                                         long delayTicks, long periodTicks, @NotNull Policy policy) {
+        if (policy == Policy.NONE || periodTicks <= 1) return null;
+
+        synchronized (entries) {
+            prune();
+            int phase = policy == Policy.LEAST_LOADED
+                    ? leastLoadedPhase(owner, scope, periodTicks)
+                    : deterministicPhase(owner, scope, periodTicks);
+            long firstRun = currentTick + delayTicks;
+            long offset = Math.floorMod(phase - firstRun, periodTicks);
+
+            Slot slot = new Slot(owner, scope, periodTicks, phase, offset);
+            entries.add(new Entry(slot));
+            return slot;
+        }
+    }
+
+    /**
+     * Returns the number of 50 milliseconds ticks elapsed on a monotonic clock, for scopes that are not ticked.
+     *
+     * @return the current tick of the wall clock
+     */
+    public static long wallClockTick() {
+        return System.nanoTime() / TICK_NANOS;
+    }
+
+    /**
+     * Attaches the scheduled task to its slot, the slot is released once the task is cancelled.
+     *
+     * @param slot the slot returned by {@link #reserve(String, String, long, long, long, Policy)}
+     * @param task the scheduled task, or null to release the slot right away
+     */
+    public static void bind(@NotNull Slot slot, @Nullable TaskImpl<?> task) {
+        synchronized (entries) {
+            for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext(); ) {
+                Entry entry = iterator.next();
+                if (entry.slot != slot) continue;
+                if (task == null) iterator.remove();
+                else entry.task = task;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tracked tasks running on each tick of a window, for the given scope.
+     *
+     * @param scope  the scope
+     * @param window the number of ticks
+     * @return the number of tasks per tick, index 0 being a tick where the phase of every period is 0
+     */
+    public static @NotNull int[] distribution(@NotNull String scope, int window) {
+        int[] load = new int[Math.max(0, window)];
+        synchronized (entries) {
+            prune();
+            for (Entry entry : entries) {
+                Slot slot = entry.slot;
+                if (!slot.scope().equals(scope)) continue;
+                for (long tick = slot.phase(); tick < load.length; tick += slot.period()) load[(int) tick]++;
+            }
+        }
+        return load;
+    }
+
+    /**
+     * Returns the scopes that have tracked tasks.
+     *
+     * @return the scopes
+     */
+    public static @NotNull List<String> scopes() {
+        TreeSet<String> scopes = new TreeSet<>();
+        synchronized (entries) {
+            prune();
+            for (Entry entry : entries) scopes.add(entry.slot.scope());
+        }
+        return new ArrayList<>(scopes);
+    }
+
+    /**
+     * Describes the load per tick of every scope: the number of tasks, and the peak and mean number of tasks per tick
+     * over a window covering all their periods (up to an hour of ticks).
+     *
+     * @return one line per scope
+     */
+    public static @NotNull List<String> report() {
+        List<String> lines = new ArrayList<>();
+        for (String scope : scopes()) {
+            int tasks = 0;
+            long window = 1;
+            synchronized (entries) {
+                for (Entry entry : entries) {
+                    if (!entry.slot.scope().equals(scope)) continue;
+                    tasks++;
+                    window = Math.min(MAX_WINDOW, lcm(window, entry.slot.period()));
+                }
+            }
+            int[] load = distribution(scope, (int) window);
+            int peak = 0;
+            long total = 0;
+            for (int count : load) {
+                peak = Math.max(peak, count);
+                total += count;
+            }
+            lines.add(String.format("%s: %d tasks, peak %d per tick, mean %.2f per tick over %d ticks",
+                    scope, tasks, peak, (double) total / load.length, load.length));
+        }
+        return lines;
+    }
+
+    /**
+     * Logs the load per tick of every scope, see {@link #report()}.
+     *
+     * @param logger the logger
+     */
+    public static void report(@NotNull Logger logger) {
+        for (String line : report()) logger.log(Level.INFO, line);
+    }
+
+    private static int deterministicPhase(String owner, String scope, long period) {
+        // Successive tasks of the owner step through the period by the golden ratio, which keeps them evenly
+        // spread whatever their number, and the start depends only on the owner so it is the same after a restart.
+        int ordinal = 0;
+        for (Entry entry : entries) {
+            Slot slot = entry.slot;
+            if (slot.period() == period && slot.owner().equals(owner) && slot.scope().equals(scope)) ordinal++;
+        }
+        long step = Math.max(1L, Math.round(period * GOLDEN_RATIO));
+        while (gcd(step, period) != 1) step++;
+        long start = Math.floorMod(mix((owner + '\0' + scope + '\0' + period).hashCode()), period);
+        return (int) Math.floorMod(start + ordinal * step, period);
+    }
+
+    private static int leastLoadedPhase(String owner, String scope, long period) {
+        // Two tasks with periods p and q and phases a and b run on the same tick once every lcm(p, q) ticks
+        // if a and b are equal modulo gcd(p, q), and never otherwise.
+        Map<Long, long[]> phases = new HashMap<>();
+        for (Entry entry : entries) {
+            Slot slot = entry.slot;
+            if (!slot.scope().equals(scope)) continue;
+            long g = gcd(period, slot.period());
+            long[] byResidue = phases.computeIfAbsent(slot.period(), p -> new long[(int) g]);
+            byResidue[(int) (slot.phase() % g)]++;
+        }
+
+        int start = deterministicPhase(owner, scope, period);
+        int best = start;
+        double bestCost = Double.MAX_VALUE;
+        for (int i = 0; i < period; i++) {
+            int phase = (int) ((start + i) % period);
+            double cost = 0;
+            for (Map.Entry<Long, long[]> entry : phases.entrySet()) {
+                long[] byResidue = entry.getValue();
+                cost += byResidue[phase % byResidue.length] / (double) lcm(period, entry.getKey());
+            }
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = phase;
+                if (cost == 0) break;
+            }
+        }
+        return best;
+    }
+
+    private static void prune() {
+        entries.removeIf(entry -> entry.task != null && entry.task.isCancelled());
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static long lcm(long a, long b) {
+        return a / gcd(a, b) * b;
+    }
+
+    /**
+     * How the phase of a repeating task is picked.
+     */
+    public enum Policy {
+        /**
+         * The task runs after the requested delay, without offset.
+         */
+        NONE,
+        /**
+         * The phase only depends on the owner, the scope, the period and the order the owner schedules its tasks in,
+         * so it is the same after every restart.
+         */
+        DETERMINISTIC,
+        /**
+         * The phase sharing the fewest ticks with the tasks already tracked in the scope, whatever their period.
+         */
+        LEAST_LOADED
+    }
+
+    /**
+     * A reserved phase.
+     *
+     * @param owner  the owner of the task
+     * @param scope  the scope of the task
+     * @param period the period of the task
+     * @param phase  the tick of the period the task runs on
+     * @param offset the number of ticks to add to the initial delay of the task
+     */
+    public record Slot(String owner, String scope, long period, int phase, long offset) {
+    }
+
+    private static final class Entry {
+        private final Slot slot;
+        private TaskImpl<?> task;
+
+        private Entry(Slot slot) {
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package one.tranic.irs.task;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Task handle for immediate tasks handed to ShreddedPaper's {@code runSync}.
+ * <p>
+ * ShreddedPaper does not return a handle for these tasks, so cancelling only prevents
+ * the task from running if it has not been picked up yet.
+ */
+public class ShreddedPaperScheduledTask implements TaskImpl<Plugin> {
+    private final Plugin owner;
+    private volatile boolean cancelled;
+
+    public ShreddedPaperScheduledTask(Plugin owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public Plugin getOwner() {
+        return owner;
+    }
+
+    @Override
+    public boolean isRepeatingTask() {
+        return false;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package one.tranic.irs.task;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Main thread task bound to an entity or a world on Spigot/Paper.
+ * <p>
+ * Before every execution the target is checked, and once it is gone the task cancels itself and runs the
+ * retired callback instead, like the {@code EntityScheduler} does on Folia.
+ */
+public class SpigotBoundTask extends BukkitRunnable implements TaskImpl<Plugin> {
+    private final Plugin owner;
+    private final BooleanSupplier alive;
+    private final Consumer<? super TaskImpl<Plugin>> task;
+    private final Runnable retired;
+    private final boolean isRepeating;
+
+    public SpigotBoundTask(Plugin owner, BooleanSupplier alive, Consumer<? super TaskImpl<Plugin>> task,
+                           @Nullable Runnable retired, boolean isRepeating) {
+        this.owner = owner;
+        this.alive = alive;
+        this.task = task;
+        this.retired = retired;
+        this.isRepeating = isRepeating;
+    }
+
+    @Override
+    public void run() {
+        if (!alive.getAsBoolean()) {
+            cancel();
+            if (retired != null) retired.run();
+            return;
+        }
+        task.accept(this);
+    }
+
+    @Override
+    public Plugin getOwner() {
+        return owner;
+    }
+
+    @Override
+    public boolean isRepeatingTask() {
+        return isRepeating;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package one.tranic.irs.task;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.function.Consumer;
+
+/**
+ * Task handle for tasks given as a {@link Consumer} on Spigot/Paper.
+ * <p>
+ * The {@code BukkitScheduler} does not return a handle for its {@code Consumer} overloads, so the task is scheduled
+ * as a {@link BukkitRunnable} that passes itself to the consumer.
+ */
+public class SpigotConsumerTask extends BukkitRunnable implements TaskImpl<Plugin> {
+    private final Plugin owner;
+    private final Consumer<? super TaskImpl<Plugin>> task;
+    private final boolean isRepeating;
+    private final boolean isSynchronized;
+
+    public SpigotConsumerTask(Plugin owner, Consumer<? super TaskImpl<Plugin>> task, boolean isRepeating, boolean isSynchronized) {
+        this.owner = owner;
+        this.task = task;
+        this.isRepeating = isRepeating;
+        this.isSynchronized = isSynchronized;
+    }
+
+    @Override
+    public void run() {
+        task.accept(this);
+    }
+
+    @Override
+    public Plugin getOwner() {
+        return owner;
+    }
+
+    @Override
+    public boolean isRepeatingTask() {
+        return isRepeating;
+    }
+
+    @Override
+    public boolean isSynchronized() {
+        return isSynchronized;
+    }
+}
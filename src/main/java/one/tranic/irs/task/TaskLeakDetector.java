@@ -0,0 +1,88 @@
+package one.tranic.irs.task;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Debug tool reporting repeating tasks that are still scheduled although their entity was removed
+ * or their world was unloaded.
+ * <p>
+ * It is disabled by default, enable it with the {@code irs.leakDetection} system property or
+ * {@link #setEnabled(boolean)}. While enabled, the place where every bound repeating task was scheduled is recorded.
+ */
+public final class TaskLeakDetector {
+    private static final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private static volatile boolean enabled = Boolean.getBoolean("irs.leakDetection");
+
+    private TaskLeakDetector() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        TaskLeakDetector.enabled = enabled;
+        if (!enabled) entries.clear();
+    }
+
+    /**
+     * Tracks a task bound to a target, does nothing if the detector is disabled.
+     *
+     * @param task   the task
+     * @param target a description of the target
+     * @param alive  tells whether the target still exists
+     */
+    public static void track(@NotNull TaskImpl<?> task, @NotNull String target, @NotNull BooleanSupplier alive) {
+        if (!enabled) return;
+        entries.add(new Entry(task, target, alive, new Throwable("Task bound to " + target + " scheduled here")));
+    }
+
+    /**
+     * Returns the tasks that are still scheduled although their target is gone.
+     * Cancelled tasks are forgotten.
+     *
+     * @return the descriptions of the leaking tasks
+     */
+    public static @NotNull List<String> report() {
+        List<String> leaks = new ArrayList<>();
+        for (Entry entry : leaks()) leaks.add(entry.target());
+        return leaks;
+    }
+
+    /**
+     * Logs the tasks that are still scheduled although their target is gone,
+     * along with the place where they were scheduled.
+     *
+     * @param logger the logger
+     * @return the number of leaking tasks
+     */
+    public static int report(@NotNull Logger logger) {
+        List<Entry> leaks = leaks();
+        for (Entry entry : leaks)
+            logger.log(Level.WARNING, "Task of " + entry.task().getOwner() + " is still bound to " + entry.target(), entry.origin());
+        return leaks.size();
+    }
+
+    private static List<Entry> leaks() {
+        List<Entry> leaks = new ArrayList<>();
+        Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.task().isCancelled()) iterator.remove();
+            else if (!entry.alive().getAsBoolean()) leaks.add(entry);
+        }
+        return leaks;
+    }
+
+    private record Entry(TaskImpl<?> task, String target, BooleanSupplier alive, Throwable origin) {
+    }
+}
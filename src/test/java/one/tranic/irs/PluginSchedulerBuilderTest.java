@@ -0,0 +1,66 @@
+package one.tranic.irs;
+
+import one.tranic.irs.executor.Bulkhead;
+import one.tranic.irs.platform.Dispatcher;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PluginSchedulerBuilderTest {
+    private final Entity entity = stub(Entity.class);
+    private final World world = stub(World.class);
+    private final Location location = new Location(world, 8, 64, 8);
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        }));
+    }
+
+    private static PluginSchedulerBuilder builder(Dispatcher dispatcher) {
+        return new PluginSchedulerBuilder(null, dispatcher).task(() -> {
+        });
+    }
+
+    @Test
+    void shreddedPaperHandsImmediateBoundTasksToChunkOwner() {
+        assertEquals(PluginSchedulerBuilder.Path.SHREDDED_PAPER, builder(Dispatcher.ShreddedPaper).sync(entity).path());
+        assertEquals(PluginSchedulerBuilder.Path.SHREDDED_PAPER, builder(Dispatcher.ShreddedPaper).sync(location).path());
+    }
+
+    @Test
+    void shreddedPaperUsesFoliaSchedulersOtherwise() {
+        assertEquals(PluginSchedulerBuilder.Path.FOLIA, builder(Dispatcher.ShreddedPaper).sync(entity).delayTicks(5L).path());
+        assertEquals(PluginSchedulerBuilder.Path.FOLIA, builder(Dispatcher.ShreddedPaper).sync(location).delayTicks(5L).period(20L).path());
+        assertEquals(PluginSchedulerBuilder.Path.FOLIA, builder(Dispatcher.ShreddedPaper).sync().path());
+        assertEquals(PluginSchedulerBuilder.Path.FOLIA, builder(Dispatcher.ShreddedPaper).async((Bulkhead) null).path());
+    }
+
+    @Test
+    void foliaAndBukkitNeverUseShreddedPaper() {
+        assertEquals(PluginSchedulerBuilder.Path.FOLIA, builder(Dispatcher.Folia).sync(entity).path());
+        assertEquals(PluginSchedulerBuilder.Path.FOLIA, builder(Dispatcher.Folia).sync(location).path());
+        assertEquals(PluginSchedulerBuilder.Path.BUKKIT, builder(Dispatcher.Bukkit).sync(entity).path());
+        assertEquals(PluginSchedulerBuilder.Path.BUKKIT, builder(Dispatcher.Bukkit).sync(location).path());
+    }
+
+    @Test
+    void bulkheadAndChunkLoadTasksTakePrecedence() {
+        Bulkhead bulkhead = Bulkhead.builder().build("test");
+        try {
+            for (Dispatcher dispatcher : Dispatcher.values()) {
+                assertEquals(PluginSchedulerBuilder.Path.BULKHEAD, builder(dispatcher).async(bulkhead).path());
+                assertEquals(PluginSchedulerBuilder.Path.CHUNK_LOAD, builder(dispatcher).whenChunkLoaded(location).path());
+            }
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package one.tranic.irs.platform;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispatcherTest {
+    static Stream<Arguments> selection() {
+        return Stream.of(
+                Arguments.of(Platform.Velocity, false, Dispatcher.Bukkit),
+                Arguments.of(Platform.Velocity, true, Dispatcher.Bukkit),
+                Arguments.of(Platform.BungeeCord, false, Dispatcher.Bukkit),
+                Arguments.of(Platform.BungeeCord, true, Dispatcher.Bukkit),
+                Arguments.of(Platform.Spigot, false, Dispatcher.Bukkit),
+                Arguments.of(Platform.Spigot, true, Dispatcher.Bukkit),
+                Arguments.of(Platform.Paper, false, Dispatcher.Bukkit),
+                Arguments.of(Platform.Paper, true, Dispatcher.Bukkit),
+                Arguments.of(Platform.ShreddedPaper, false, Dispatcher.Folia),
+                Arguments.of(Platform.ShreddedPaper, true, Dispatcher.ShreddedPaper),
+                Arguments.of(Platform.Folia, false, Dispatcher.Folia),
+                Arguments.of(Platform.Folia, true, Dispatcher.Folia)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("selection")
+    void selectsDispatcher(Platform platform, boolean hookable, Dispatcher expected) {
+        assertEquals(expected, Dispatcher.of(platform, hookable));
+    }
+
+    @Test
+    void selectionCoversEveryPlatform() {
+        Set<Platform> covered = EnumSet.noneOf(Platform.class);
+        selection().forEach(arguments -> covered.add((Platform) arguments.get()[0]));
+        assertEquals(EnumSet.allOf(Platform.class), covered);
+    }
+
+    @Test
+    void onlyBukkitIsSingleThreaded() {
+        assertFalse(Dispatcher.Bukkit.isMultithreading());
+        assertTrue(Dispatcher.Folia.isMultithreading());
+        assertTrue(Dispatcher.ShreddedPaper.isMultithreading());
+    }
+
+    @Test
+    void onlyShreddedPaperHandsOffToChunkOwner() {
+        assertFalse(Dispatcher.Bukkit.handsOffToChunkOwner());
+        assertFalse(Dispatcher.Folia.handsOffToChunkOwner());
+        assertTrue(Dispatcher.ShreddedPaper.handsOffToChunkOwner());
+    }
+}